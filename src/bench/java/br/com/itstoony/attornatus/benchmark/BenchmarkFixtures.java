@@ -0,0 +1,74 @@
+package br.com.itstoony.attornatus.benchmark;
+
+import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Locality;
+import br.com.itstoony.attornatus.model.Person;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static Person person(Long id, String name, int addresses) {
+        Person person = Person.builder()
+                .id(id)
+                .name(name)
+                .cpf(cpf(id))
+                .birthDay(LocalDate.of(1998, 11, 25))
+                .addressSet(new HashSet<>())
+                .build();
+
+        for (int i = 0; i < addresses; i++) {
+            Address address = Address.builder()
+                    .id(id * 10 + i)
+                    .locality(Locality.builder()
+                            .zipcode("69098-384")
+                            .street("Rua Hortelã-do-Campo")
+                            .city("Manaus")
+                            .build())
+                    .number(100 + i)
+                    .main(i == 0)
+                    .person(person)
+                    .build();
+            person.getAddressSet().add(address);
+        }
+        return person;
+    }
+
+    /**
+     * A valid, formatted CPF whose first nine digits are the passed number.
+     */
+    static String cpf(long number) {
+        int[] digits = new int[11];
+        String base = String.format("%09d", number % 1_000_000_000L);
+        for (int i = 0; i < 9; i++) {
+            digits[i] = base.charAt(i) - '0';
+        }
+        digits[9] = checkDigit(digits, 9);
+        digits[10] = checkDigit(digits, 10);
+
+        StringBuilder cpf = new StringBuilder(14);
+        for (int i = 0; i < 11; i++) {
+            cpf.append(digits[i]);
+            if (i == 2 || i == 5) {
+                cpf.append('.');
+            } else if (i == 8) {
+                cpf.append('-');
+            }
+        }
+        return cpf.toString();
+    }
+
+    private static int checkDigit(int[] digits, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += digits[i] * (length + 1 - i);
+        }
+        int rest = sum % 11;
+        return rest < 2 ? 0 : 11 - rest;
+    }
+
+}
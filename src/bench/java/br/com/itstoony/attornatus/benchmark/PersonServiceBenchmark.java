@@ -0,0 +1,80 @@
+package br.com.itstoony.attornatus.benchmark;
+
+import br.com.itstoony.attornatus.AttornatusApplication;
+import br.com.itstoony.attornatus.dto.RegisteringPersonRecord;
+import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.service.AddressService;
+import br.com.itstoony.attornatus.service.PersonService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registration and name search through the real services, repositories and an in-memory H2 database.
+ * ViaCEP is replaced by a stub so the numbers don't depend on the network.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersonServiceBenchmark {
+
+    static final int SEEDED_PEOPLE = 1_000;
+
+    private ConfigurableApplicationContext context;
+
+    private PersonService personService;
+
+    private AddressService addressService;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AttornatusApplication.class, StubViaCepConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN",
+                        "logging.file.name=")
+                .run();
+
+        personService = context.getBean(PersonService.class);
+        addressService = context.getBean(AddressService.class);
+
+        for (int i = 0; i < SEEDED_PEOPLE; i++) {
+            register();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Person register() {
+        long n = sequence.incrementAndGet();
+        RegisteringPersonRecord dto = new RegisteringPersonRecord("Fulano " + n, BenchmarkFixtures.cpf(n),
+                LocalDate.of(1998, 11, 25), "69098384", 123);
+
+        Address address = addressService.findFromDTO(dto);
+        return personService.register(dto, address);
+    }
+
+    @Benchmark
+    public Page<Person> find() {
+        return personService.find("ulano 12", PageRequest.of(0, 20));
+    }
+
+}
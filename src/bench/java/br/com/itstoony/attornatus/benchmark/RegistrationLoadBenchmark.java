@@ -0,0 +1,118 @@
+package br.com.itstoony.attornatus.benchmark;
+
+import br.com.itstoony.attornatus.AttornatusApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of POST /person under 400 concurrent clients while every ViaCEP lookup takes {@code latency}
+ * milliseconds, with requests served by Tomcat's platform thread pool and by virtual threads.
+ * Each request uses a new zipcode so the lookup cache never hides the upstream latency.
+ * <p>
+ * Both modes get the same room for lookups: 200 ViaCEP calls at once, and a deadline and slow-call threshold
+ * well above the latency, so the comparison measures the threads rather than the limits. Failed registrations
+ * don't stop the run, they're counted next to the successful ones as register:failed and register:registered.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(400)
+@State(Scope.Benchmark)
+public class RegistrationLoadBenchmark {
+
+    @Param({"false", "true"})
+    private boolean virtual;
+
+    @Param({"200"})
+    private long latency;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private URI uri;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // arguments rather than default properties, which application.properties would override
+        context = new SpringApplicationBuilder(AttornatusApplication.class, StubViaCepConfig.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=WARN",
+                        "--logging.file.name=",
+                        "--attornatus.threads.virtual=" + virtual,
+                        "--attornatus.zipcode.lookup.threads=200",
+                        "--attornatus.zipcode.lookup.virtual-concurrency=200",
+                        "--attornatus.zipcode.lookup.timeout=10s",
+                        "--resilience4j.circuitbreaker.instances.viacep.slow-call-duration-threshold=10s",
+                        "--bench.viacep.latency=" + latency);
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        uri = URI.create("http://localhost:" + port + "/person");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public int register(Outcomes outcomes) throws IOException, InterruptedException {
+        long n = sequence.incrementAndGet();
+        String body = """
+                {"name": "Fulano %d", "cpf": "%s", "birthDay": "1998-11-25", "zipcode": "%08d", "number": 123}
+                """.formatted(n, BenchmarkFixtures.cpf(n), 10_000_000 + n);
+
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status == 201) {
+            outcomes.registered++;
+        } else {
+            outcomes.failed++;
+        }
+        return status;
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+
+        public long registered;
+
+        public long failed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            registered = 0;
+            failed = 0;
+        }
+
+    }
+
+}
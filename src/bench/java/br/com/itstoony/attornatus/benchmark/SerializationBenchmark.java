@@ -0,0 +1,64 @@
+package br.com.itstoony.attornatus.benchmark;
+
+import br.com.itstoony.attornatus.dto.PersonDTO;
+import br.com.itstoony.attornatus.mapper.AddressMapper;
+import br.com.itstoony.attornatus.mapper.PersonMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * JSON serialization of the page GET /person returns, with the object mapper configured as Spring Boot does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private Page<PersonDTO> page;
+
+    private PersonDTO person;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        PersonMapper personMapper = new PersonMapper(new AddressMapper());
+        List<PersonDTO> people = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> personMapper.toDTO(BenchmarkFixtures.person(id, "Fulano " + id, 2)))
+                .toList();
+
+        page = new PageImpl<>(people, PageRequest.of(0, pageSize), 10_000);
+        person = people.get(0);
+    }
+
+    @Benchmark
+    public byte[] page() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] person() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(person);
+    }
+
+}
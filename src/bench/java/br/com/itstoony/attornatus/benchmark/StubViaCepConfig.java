@@ -0,0 +1,50 @@
+package br.com.itstoony.attornatus.benchmark;
+
+import br.com.itstoony.attornatus.client.ViaCepClient;
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Replaces the ViaCEP Feign client with a stub answering every zipcode, after {@code bench.viacep.latency}
+ * milliseconds. Not a @Configuration, so component scanning of the application doesn't pick it up;
+ * benchmarks pass it as a source of the application they start.
+ */
+class StubViaCepConfig {
+
+    /**
+     * Feign client beans are primary, which would clash with the stub.
+     */
+    @Bean
+    static BeanFactoryPostProcessor demoteFeignViaCepClient() {
+        return beanFactory -> {
+            String name = ViaCepClient.class.getName();
+            if (beanFactory.containsBeanDefinition(name)) {
+                beanFactory.getBeanDefinition(name).setPrimary(false);
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    ViaCepClient stubViaCepClient(@Value("${bench.viacep.latency:0}") long latency) {
+        return zipcode -> {
+            if (latency > 0) {
+                try {
+                    Thread.sleep(latency);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            return ViaCepResponseDTO.builder()
+                    .cep(zipcode.substring(0, 5) + "-" + zipcode.substring(5))
+                    .logradouro("Rua Hortelã-do-Campo")
+                    .localidade("Manaus")
+                    .build();
+        };
+    }
+
+}
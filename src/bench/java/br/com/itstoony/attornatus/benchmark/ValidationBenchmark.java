@@ -0,0 +1,57 @@
+package br.com.itstoony.attornatus.benchmark;
+
+import br.com.itstoony.attornatus.dto.RegisteringPersonRecord;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation of a registration, which checks the CPF digits and the CEP pattern,
+ * for a valid record and for one failing both.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    private RegisteringPersonRecord valid;
+
+    private RegisteringPersonRecord invalid;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        valid = new RegisteringPersonRecord("Fulano", "486.031.170-12", LocalDate.of(1998, 11, 25), "69098384", 123);
+        invalid = new RegisteringPersonRecord("Fulano", "486.031.170-13", LocalDate.of(1998, 11, 25), "69098-38", 123);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<RegisteringPersonRecord>> validRecord() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<RegisteringPersonRecord>> invalidRecord() {
+        return validator.validate(invalid);
+    }
+
+}
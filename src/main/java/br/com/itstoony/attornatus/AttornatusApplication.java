@@ -1,18 +1,26 @@
 package br.com.itstoony.attornatus;
 
-import org.modelmapper.ModelMapper;
+import br.com.itstoony.attornatus.mapper.AddressMapper;
+import br.com.itstoony.attornatus.mapper.PersonMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 @EnableFeignClients
 public class AttornatusApplication {
 
     @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
+    public AddressMapper addressMapper() {
+        return new AddressMapper();
+    }
+
+    @Bean
+    public PersonMapper personMapper(AddressMapper addressMapper) {
+        return new PersonMapper(addressMapper);
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,133 @@
+package br.com.itstoony.attornatus.actuator;
+
+import br.com.itstoony.attornatus.util.SlowStatementLog;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hibernate statistics and the slowest recent statements, at /actuator/jpastats.
+ * Times are in milliseconds. A DELETE starts both over.
+ */
+@Endpoint(id = "jpastats")
+public class JpaStatsEndpoint {
+
+    private final Statistics statistics;
+
+    private final SlowStatementLog slowStatementLog;
+
+    public JpaStatsEndpoint(EntityManagerFactory entityManagerFactory, SlowStatementLog slowStatementLog) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.slowStatementLog = slowStatementLog;
+    }
+
+    @ReadOperation
+    public Report report() {
+        return new Report(
+                statistics.isStatisticsEnabled(),
+                statistics.getStart(),
+                new Totals(
+                        statistics.getPrepareStatementCount(),
+                        statistics.getQueryExecutionCount(),
+                        statistics.getQueryExecutionMaxTime(),
+                        statistics.getQueryExecutionMaxTimeQueryString(),
+                        statistics.getEntityLoadCount(),
+                        statistics.getEntityFetchCount(),
+                        statistics.getCollectionLoadCount(),
+                        statistics.getCollectionFetchCount(),
+                        statistics.getFlushCount(),
+                        statistics.getTransactionCount()),
+                new CacheRatios(
+                        statistics.getSecondLevelCacheHitCount(),
+                        statistics.getSecondLevelCacheMissCount(),
+                        statistics.getSecondLevelCachePutCount(),
+                        ratio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount())),
+                new CacheRatios(
+                        statistics.getQueryCacheHitCount(),
+                        statistics.getQueryCacheMissCount(),
+                        statistics.getQueryCachePutCount(),
+                        ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount())),
+                queries(),
+                entities(),
+                slowStatementLog.recorded(),
+                slowStatementLog.slowest());
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.clear();
+        slowStatementLog.clear();
+    }
+
+    /**
+     * Queries by their HQL or SQL, the one with the longest execution first.
+     * Hibernate keeps at most {@code hibernate.statistics.query_max_size} of them.
+     */
+    private Map<String, QueryReport> queries() {
+        Map<String, QueryReport> queries = new LinkedHashMap<>();
+        Arrays.stream(statistics.getQueries())
+                .map(query -> Map.entry(query, statistics.getQueryStatistics(query)))
+                .sorted(Comparator.comparingLong((Map.Entry<String, QueryStatistics> e) -> e.getValue().getExecutionMaxTime())
+                        .reversed())
+                .forEach(e -> queries.put(e.getKey(), new QueryReport(
+                        e.getValue().getExecutionCount(),
+                        e.getValue().getExecutionRowCount(),
+                        e.getValue().getExecutionMinTime(),
+                        e.getValue().getExecutionAvgTime(),
+                        e.getValue().getExecutionMaxTime())));
+        return queries;
+    }
+
+    private Map<String, EntityReport> entities() {
+        Map<String, EntityReport> entities = new LinkedHashMap<>();
+        Arrays.stream(statistics.getEntityNames()).sorted().forEach(name -> {
+            EntityStatistics entity = statistics.getEntityStatistics(name);
+            entities.put(name, new EntityReport(
+                    entity.getLoadCount(),
+                    entity.getFetchCount(),
+                    entity.getInsertCount(),
+                    entity.getUpdateCount(),
+                    entity.getDeleteCount(),
+                    entity.getOptimisticFailureCount()));
+        });
+        return entities;
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public record Report(boolean statisticsEnabled, Instant since, Totals totals, CacheRatios secondLevelCache,
+                         CacheRatios queryCache, Map<String, QueryReport> queries, Map<String, EntityReport> entities,
+                         long slowStatementsRecorded, List<SlowStatementLog.Entry> slowStatements) {
+    }
+
+    public record Totals(long preparedStatements, long queryExecutions, long queryExecutionMaxMillis,
+                         String slowestQuery, long entityLoads, long entityFetches, long collectionLoads,
+                         long collectionFetches, long flushes, long transactions) {
+    }
+
+    public record CacheRatios(long hits, long misses, long puts, double hitRatio) {
+    }
+
+    public record QueryReport(long executions, long rows, long minMillis, long meanMillis, long maxMillis) {
+    }
+
+    public record EntityReport(long loads, long fetches, long inserts, long updates, long deletes,
+                               long optimisticFailures) {
+    }
+
+}
@@ -0,0 +1,47 @@
+package br.com.itstoony.attornatus.actuator;
+
+import br.com.itstoony.attornatus.config.ZipcodeProperties;
+import br.com.itstoony.attornatus.service.ZipcodeWarmup;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Out of service until the startup zipcode warm-up has finished, or its readiness timeout has passed, so an
+ * instance in the readiness group only takes traffic once the most used zipcodes are cached.
+ */
+@Component
+public class ZipcodeWarmupHealthIndicator implements HealthIndicator {
+
+    private final ZipcodeWarmup zipcodeWarmup;
+
+    private final boolean enabled;
+
+    private final Instant deadline;
+
+    public ZipcodeWarmupHealthIndicator(ZipcodeWarmup zipcodeWarmup, ZipcodeProperties properties) {
+        this.zipcodeWarmup = zipcodeWarmup;
+        this.enabled = properties.getWarmup().isEnabled();
+        this.deadline = Instant.now().plus(properties.getWarmup().getReadinessTimeout());
+    }
+
+    @Override
+    public Health health() {
+        if (!enabled) {
+            return Health.up().withDetail("warmup", "disabled").build();
+        }
+
+        ZipcodeWarmup.Result result = zipcodeWarmup.lastResult();
+        if (result != null) {
+            return Health.up().withDetail("warmup", result).build();
+        }
+
+        if (Instant.now().isBefore(deadline)) {
+            return Health.outOfService().withDetail("warmup", "running").build();
+        }
+        return Health.up().withDetail("warmup", "still running, readiness timeout passed").build();
+    }
+
+}
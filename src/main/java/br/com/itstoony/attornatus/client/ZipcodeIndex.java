@@ -0,0 +1,172 @@
+package br.com.itstoony.attornatus.client;
+
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Read-only, memory-mapped index of the national CEP base, written by {@link ZipcodeIndexBuilder}.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * header        magic "CEPX", version, record count, city count
+ * ceps          int[count]        sorted zipcodes as numbers
+ * cityIds       int[count]        city of each record
+ * streetOffsets int[count + 1]    offsets of each street in the street data
+ * cityOffsets   int[cities + 1]   offsets of each city in the city data
+ * street data   UTF-8 bytes
+ * city data     UTF-8 bytes
+ * </pre>
+ * Lookups binary search the mapped zipcode array directly; cities are decoded once when the index is opened,
+ * so a hit only allocates the returned record.
+ */
+public class ZipcodeIndex {
+
+    static final int MAGIC = 0x43455058;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 16;
+
+    private static final ZipcodeIndex EMPTY = new ZipcodeIndex(ByteBuffer.allocate(0), 0, new String[0]);
+
+    private final ByteBuffer buffer;
+
+    private final int count;
+
+    private final String[] cities;
+
+    private final int cityIdsStart;
+
+    private final int streetOffsetsStart;
+
+    private final int streetDataStart;
+
+    private ZipcodeIndex(ByteBuffer buffer, int count, String[] cities) {
+        this.buffer = buffer;
+        this.count = count;
+        this.cities = cities;
+        this.cityIdsStart = HEADER_BYTES + count * Integer.BYTES;
+        this.streetOffsetsStart = cityIdsStart + count * Integer.BYTES;
+        this.streetDataStart = streetOffsetsStart + (count + 1) * Integer.BYTES + (cities.length + 1) * Integer.BYTES;
+    }
+
+    public static ZipcodeIndex empty() {
+        return EMPTY;
+    }
+
+    public static ZipcodeIndex open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a zipcode index: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported zipcode index version " + buffer.getInt(4) + ": " + path);
+        }
+
+        int count = buffer.getInt(8);
+        int cityCount = buffer.getInt(12);
+
+        int cityOffsetsStart = HEADER_BYTES + count * Integer.BYTES * 2 + (count + 1) * Integer.BYTES;
+        int streetDataLength = buffer.getInt(cityOffsetsStart - Integer.BYTES);
+        int cityDataStart = cityOffsetsStart + (cityCount + 1) * Integer.BYTES + streetDataLength;
+
+        String[] cities = new String[cityCount];
+        for (int i = 0; i < cityCount; i++) {
+            int start = buffer.getInt(cityOffsetsStart + i * Integer.BYTES);
+            int end = buffer.getInt(cityOffsetsStart + (i + 1) * Integer.BYTES);
+            cities[i] = decode(buffer, cityDataStart + start, end - start).intern();
+        }
+
+        return new ZipcodeIndex(buffer, count, cities);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * True for the {@linkplain #empty() stand-in} used when no index is configured, or an index with no zipcodes.
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Finds a zipcode given as 8 digits.
+     */
+    public Optional<ViaCepResponseDTO> find(String zipcode) {
+        int cep = parse(zipcode);
+        if (cep < 0) {
+            return Optional.empty();
+        }
+
+        int position = search(cep);
+        if (position < 0) {
+            return Optional.empty();
+        }
+
+        int start = buffer.getInt(streetOffsetsStart + position * Integer.BYTES);
+        int end = buffer.getInt(streetOffsetsStart + (position + 1) * Integer.BYTES);
+        int cityId = buffer.getInt(cityIdsStart + position * Integer.BYTES);
+
+        return Optional.of(ViaCepResponseDTO.builder()
+                .cep(zipcode.substring(0, 5) + "-" + zipcode.substring(5))
+                .logradouro(decode(buffer, streetDataStart + start, end - start))
+                .localidade(cities[cityId])
+                .build());
+    }
+
+    private int search(int cep) {
+        int low = 0;
+        int high = count - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = buffer.getInt(HEADER_BYTES + middle * Integer.BYTES);
+
+            if (value < cep) {
+                low = middle + 1;
+            } else if (value > cep) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    static int parse(String zipcode) {
+        if (zipcode == null || zipcode.length() != 8) {
+            return -1;
+        }
+
+        int value = 0;
+        for (int i = 0; i < 8; i++) {
+            char c = zipcode.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static String decode(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,144 @@
+package br.com.itstoony.attornatus.client;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Builds a {@link ZipcodeIndex} file from a CSV export of the CEP base.
+ * <p>
+ * Each line holds {@code zipcode;street;city}. The zipcode may be formatted ({@code 69098-384}),
+ * fields may be quoted, and a header line is skipped. When a zipcode repeats, the last line wins.
+ * <pre>
+ * java -cp attornatus.jar -Dloader.main=br.com.itstoony.attornatus.client.ZipcodeIndexBuilder \
+ *      org.springframework.boot.loader.PropertiesLauncher ceps.csv ceps.idx [delimiter]
+ * </pre>
+ */
+public class ZipcodeIndexBuilder {
+
+    private final TreeMap<Integer, Entry> entries = new TreeMap<>();
+
+    private final Pattern delimiter;
+
+    public ZipcodeIndexBuilder(char delimiter) {
+        this.delimiter = Pattern.compile(Pattern.quote(String.valueOf(delimiter)));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: ZipcodeIndexBuilder <input.csv> <output.idx> [delimiter]");
+            System.exit(1);
+        }
+
+        char delimiter = args.length > 2 ? args[2].charAt(0) : ';';
+        ZipcodeIndexBuilder builder = new ZipcodeIndexBuilder(delimiter);
+        int skipped = builder.read(Path.of(args[0]));
+        builder.write(Path.of(args[1]));
+
+        System.out.printf("Wrote %d zipcodes to %s (%d lines skipped)%n", builder.size(), args[1], skipped);
+    }
+
+    /**
+     * Reads the CSV, returning how many lines could not be parsed.
+     */
+    public int read(Path csv) throws IOException {
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!add(line)) {
+                    skipped++;
+                }
+            }
+        }
+        return skipped;
+    }
+
+    public boolean add(String line) {
+        String[] fields = delimiter.split(line, 3);
+        if (fields.length < 3) {
+            return false;
+        }
+
+        int cep = ZipcodeIndex.parse(unquote(fields[0]).replace("-", ""));
+        if (cep < 0) {
+            return false;
+        }
+
+        entries.put(cep, new Entry(unquote(fields[1]), unquote(fields[2])));
+        return true;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void write(Path output) throws IOException {
+        Map<String, Integer> cityIds = new HashMap<>();
+        List<String> cities = new ArrayList<>();
+        ByteArrayOutputStream streets = new ByteArrayOutputStream();
+
+        int[] ceps = new int[entries.size()];
+        int[] recordCities = new int[entries.size()];
+        int[] streetOffsets = new int[entries.size() + 1];
+
+        int i = 0;
+        for (Map.Entry<Integer, Entry> entry : entries.entrySet()) {
+            ceps[i] = entry.getKey();
+            recordCities[i] = cityIds.computeIfAbsent(entry.getValue().city(), city -> {
+                cities.add(city);
+                return cities.size() - 1;
+            });
+            streets.writeBytes(entry.getValue().street().getBytes(StandardCharsets.UTF_8));
+            streetOffsets[++i] = streets.size();
+        }
+
+        ByteArrayOutputStream cityData = new ByteArrayOutputStream();
+        int[] cityOffsets = new int[cities.size() + 1];
+        for (int c = 0; c < cities.size(); c++) {
+            cityData.writeBytes(cities.get(c).getBytes(StandardCharsets.UTF_8));
+            cityOffsets[c + 1] = cityData.size();
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            out.writeInt(ZipcodeIndex.MAGIC);
+            out.writeInt(ZipcodeIndex.VERSION);
+            out.writeInt(ceps.length);
+            out.writeInt(cities.size());
+            writeInts(out, ceps);
+            writeInts(out, recordCities);
+            writeInts(out, streetOffsets);
+            writeInts(out, cityOffsets);
+            streets.writeTo(out);
+            cityData.writeTo(out);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static String unquote(String field) {
+        String trimmed = field.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).replace("\"\"", "\"");
+        }
+        return trimmed;
+    }
+
+    private record Entry(String street, String city) { }
+
+}
@@ -0,0 +1,27 @@
+package br.com.itstoony.attornatus.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "attornatus.address-import")
+public class AddressImportProperties {
+
+    /**
+     * Rows read, resolved and inserted together; only one chunk is held in memory at a time.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Zipcode lookups a single import keeps in flight, so it doesn't take the whole lookup pool.
+     */
+    private int lookupParallelism = 8;
+
+    /**
+     * Failed rows listed in the report, the ones past it are only counted.
+     */
+    private int maxReportedErrors = 1000;
+
+}
@@ -0,0 +1,19 @@
+package br.com.itstoony.attornatus.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "attornatus.cpf-filter")
+public class CpfFilterProperties {
+
+    /**
+     * Registered CPFs the filter is sized for; past it the false positive rate grows and more checks reach the database.
+     */
+    private long expectedInsertions = 1_000_000;
+
+    private double falsePositiveRate = 0.01;
+
+}
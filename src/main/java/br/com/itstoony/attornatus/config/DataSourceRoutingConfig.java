@@ -0,0 +1,179 @@
+package br.com.itstoony.attornatus.config;
+
+import br.com.itstoony.attornatus.service.ReadYourWrites;
+import br.com.itstoony.attornatus.util.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Routes read-only transactions to the replicas under {@code attornatus.datasource.replicas}, only when there's
+ * at least one. Requests on a person written during the last {@code attornatus.datasource.read-your-writes}
+ * read from the primary.
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "attornatus.datasource", name = "replicas[0].url")
+public class DataSourceRoutingConfig implements WebMvcConfigurer {
+
+    private final ReadYourWrites readYourWrites;
+
+    @Bean
+    public static BeanPostProcessor replicaRoutingPostProcessor(ObjectProvider<DataSourceRoutingProperties> properties) {
+        return new RoutingPostProcessor(properties);
+    }
+
+    /**
+     * Spring holds a session's connection until the session closes, and the open-in-view session spans the
+     * whole request; released after each transaction instead, the next transaction gets its own.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(readYourWrites));
+    }
+
+    private static HikariDataSource replica(int index, DataSourceRoutingProperties.Replica replica,
+                                      DataSourceRoutingProperties properties) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replica.getUrl())
+                .username(replica.getUsername())
+                .password(replica.getPassword())
+                .build();
+        dataSource.setPoolName("replica-" + index);
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        dataSource.setConnectionTimeout(properties.getReplicaConnectionTimeout().toMillis());
+        dataSource.setReadOnly(true);
+        // a replica down at startup is skipped until it's back instead of failing the startup
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    /**
+     * Ordered, so it wraps the primary before other post-processors, such as the statement timing one, wrap it
+     * in turn and see the replica connections too. The replica pools it creates are closed along with it.
+     */
+    @RequiredArgsConstructor
+    private static class RoutingPostProcessor implements BeanPostProcessor, Ordered, DisposableBean {
+
+        private final ObjectProvider<DataSourceRoutingProperties> properties;
+
+        private final List<HikariDataSource> pools = new ArrayList<>();
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource primary) || bean instanceof ReplicaRoutingDataSource) {
+                return bean;
+            }
+
+            DataSourceRoutingProperties routing = properties.getObject();
+            List<DataSource> replicas = new ArrayList<>();
+            for (int i = 0; i < routing.getReplicas().size(); i++) {
+                HikariDataSource pool = replica(pools.size(), routing.getReplicas().get(i), routing);
+                pools.add(pool);
+                replicas.add(pool);
+            }
+            return new ReplicaRoutingDataSource(primary, replicas, routing.getReadYourWrites(), routing.getReplicaRetry());
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void destroy() {
+            pools.forEach(HikariDataSource::close);
+        }
+
+    }
+
+    /**
+     * Pins the request to the primary when it writes, or when its path names a person written recently, and
+     * forgets the writes of the request once it's over. Writes load what they change through read-only
+     * methods, and a lagging replica would hand them a stale version to check If-Match and merge against.
+     */
+    @RequiredArgsConstructor
+    private static class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+        private static final List<String> PERSON_VARIABLES = List.of("id", "personID");
+
+        private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+        private static final String PIN = ReadYourWritesInterceptor.class.getName() + ".pin";
+
+        private final ReadYourWrites readYourWrites;
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            if (!READ_METHODS.contains(request.getMethod()) || isRecentlyWritten(request)) {
+                request.setAttribute(PIN, ReplicaRoutingDataSource.pinToPrimary());
+            }
+            return true;
+        }
+
+        @Override
+        public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                   Object handler) {
+            release(request);
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                    Exception ex) {
+            release(request);
+        }
+
+        private boolean isRecentlyWritten(HttpServletRequest request) {
+            return request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) instanceof Map<?, ?> variables
+                    && PERSON_VARIABLES.stream().anyMatch(name -> isRecentlyWritten(variables.get(name)));
+        }
+
+        private boolean isRecentlyWritten(Object id) {
+            try {
+                return id instanceof String value && readYourWrites.isRecentlyWritten(Long.valueOf(value));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private static void release(HttpServletRequest request) {
+            // the thread's next request reads from replicas again
+            ReplicaRoutingDataSource.forgetWrites();
+            if (request.getAttribute(PIN) instanceof ReplicaRoutingDataSource.Pin pin) {
+                request.removeAttribute(PIN);
+                pin.close();
+            }
+        }
+
+    }
+
+}
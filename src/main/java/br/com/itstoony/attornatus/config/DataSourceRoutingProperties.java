@@ -0,0 +1,56 @@
+package br.com.itstoony.attornatus.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "attornatus.datasource")
+public class DataSourceRoutingProperties {
+
+    /**
+     * Read replicas of the primary datasource. When there's at least one, read-only transactions are sent to
+     * them in turn and everything else stays on the primary.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * How long reads keep going to the primary after a write, on the thread that wrote and for the person
+     * written. Should cover the usual replication lag.
+     */
+    private Duration readYourWrites = Duration.ofSeconds(5);
+
+    /**
+     * How long a replica that refused a connection is skipped before being tried again.
+     */
+    private Duration replicaRetry = Duration.ofSeconds(10);
+
+    /**
+     * How long to wait for a replica connection before trying the next replica, or the primary.
+     */
+    private Duration replicaConnectionTimeout = Duration.ofSeconds(1);
+
+    public boolean isRouting() {
+        return !replicas.isEmpty();
+    }
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+
+    }
+
+}
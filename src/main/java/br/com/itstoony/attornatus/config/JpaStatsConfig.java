@@ -0,0 +1,48 @@
+package br.com.itstoony.attornatus.config;
+
+import br.com.itstoony.attornatus.actuator.JpaStatsEndpoint;
+import br.com.itstoony.attornatus.util.SlowStatementLog;
+import br.com.itstoony.attornatus.util.TimedDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wires the JPA statistics endpoint, only when {@code attornatus.jpa-stats.enabled} is set.
+ * Hibernate statistics follow the same switch through {@code hibernate.generate_statistics}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "attornatus.jpa-stats", name = "enabled", havingValue = "true")
+public class JpaStatsConfig {
+
+    @Bean
+    public SlowStatementLog slowStatementLog(JpaStatsProperties properties) {
+        JpaStatsProperties.SlowStatements slowStatements = properties.getSlowStatements();
+        return new SlowStatementLog(slowStatements.getThreshold(), slowStatements.getCapacity());
+    }
+
+    @Bean
+    public static BeanPostProcessor timedDataSourcePostProcessor(ObjectProvider<SlowStatementLog> slowStatementLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof TimedDataSource)) {
+                    return new TimedDataSource(dataSource, slowStatementLog.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public JpaStatsEndpoint jpaStatsEndpoint(EntityManagerFactory entityManagerFactory,
+                                             SlowStatementLog slowStatementLog) {
+        return new JpaStatsEndpoint(entityManagerFactory, slowStatementLog);
+    }
+
+}
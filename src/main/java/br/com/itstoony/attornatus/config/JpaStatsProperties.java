@@ -0,0 +1,37 @@
+package br.com.itstoony.attornatus.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "attornatus.jpa-stats")
+public class JpaStatsProperties {
+
+    /**
+     * Collects Hibernate statistics, times every JDBC statement and serves both at /actuator/jpastats.
+     */
+    private boolean enabled = false;
+
+    private SlowStatements slowStatements = new SlowStatements();
+
+    @Getter
+    @Setter
+    public static class SlowStatements {
+
+        /**
+         * Statements taking at least this long are kept.
+         */
+        private Duration threshold = Duration.ofMillis(50);
+
+        /**
+         * Slow statements kept, the oldest one is dropped past it.
+         */
+        private int capacity = 100;
+
+    }
+
+}
@@ -0,0 +1,46 @@
+package br.com.itstoony.attornatus.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "attornatus.person-cache")
+public class PersonCacheProperties {
+
+    private long maximumSize = 10_000;
+
+    /**
+     * Writes through PersonService invalidate entries right away; the ttl bounds how long
+     * changes made elsewhere, e.g. by another instance, can go unseen.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * How long an unknown id is answered with 404 without asking the database.
+     */
+    private Duration negativeTtl = Duration.ofSeconds(30);
+
+    private Json json = new Json();
+
+    @Getter
+    @Setter
+    public static class Json {
+
+        /**
+         * Keeps each person view serialized too, so GET /person/{id} writes the bytes without Jackson.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Bound on the serialized views kept, by their total size rather than their number.
+         */
+        private DataSize maximumSize = DataSize.ofMegabytes(64);
+
+    }
+
+}
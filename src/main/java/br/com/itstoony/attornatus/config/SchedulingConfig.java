@@ -0,0 +1,35 @@
+package br.com.itstoony.attornatus.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.task.TaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * Runs the scheduled tasks on a pool sized by {@code spring.task.scheduling.pool.size}, so a long zipcode
+ * warm-up doesn't hold up the ViaCEP probe. Spring Boot backs off its own scheduler as soon as there's a
+ * SchedulingConfigurer, which would leave every task on a single thread.
+ */
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+public class SchedulingConfig implements SchedulingConfigurer {
+
+    private final ObjectProvider<ThreadPoolTaskScheduler> taskScheduler;
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(TaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.setScheduler(taskScheduler.getObject());
+    }
+
+}
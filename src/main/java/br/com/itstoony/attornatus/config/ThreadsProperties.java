@@ -0,0 +1,17 @@
+package br.com.itstoony.attornatus.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "attornatus.threads")
+public class ThreadsProperties {
+
+    /**
+     * Serves requests, async work and zipcode lookups on virtual threads; see VirtualThreadConfig.
+     */
+    private boolean virtual;
+
+}
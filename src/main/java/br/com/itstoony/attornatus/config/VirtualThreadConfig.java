@@ -0,0 +1,35 @@
+package br.com.itstoony.attornatus.config;
+
+import br.com.itstoony.attornatus.util.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * Runs servlet requests, and everything they call synchronously such as JDBC, on virtual threads, so a request
+ * blocked on I/O no longer holds one of Tomcat's pooled threads. Async work (streamed responses) moves to
+ * virtual threads as well. ViaCEP calls don't run on the request thread: ZipcodeService gives each lookup a
+ * virtual thread of its own under the same switch. Enabled by {@code attornatus.threads.virtual=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "attornatus.threads", name = "virtual", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        log.info("Serving requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newExecutor("tomcat-virtual-"));
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(VirtualThreads.newExecutor("task-virtual-"));
+    }
+
+}
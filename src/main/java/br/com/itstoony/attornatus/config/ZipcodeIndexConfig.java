@@ -0,0 +1,28 @@
+package br.com.itstoony.attornatus.config;
+
+import br.com.itstoony.attornatus.client.ZipcodeIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+@Slf4j
+public class ZipcodeIndexConfig {
+
+    @Bean
+    public ZipcodeIndex zipcodeIndex(ZipcodeProperties properties) throws IOException {
+        String path = properties.getIndex().getPath();
+        if (path == null || path.isBlank()) {
+            log.info("No zipcode index configured, zipcodes will be resolved through ViaCEP");
+            return ZipcodeIndex.empty();
+        }
+
+        ZipcodeIndex index = ZipcodeIndex.open(Path.of(path));
+        log.info("Loaded zipcode index with {} zipcodes from {}", index.size(), path);
+        return index;
+    }
+
+}
@@ -0,0 +1,27 @@
+package br.com.itstoony.attornatus.config;
+
+import br.com.itstoony.attornatus.service.ZipcodeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * Probes ViaCEP every {@code attornatus.zipcode.probe.interval} while its circuit breaker isn't closed.
+ */
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+public class ZipcodeProbeConfig implements SchedulingConfigurer {
+
+    private final ZipcodeService zipcodeService;
+
+    private final ZipcodeProperties properties;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(zipcodeService::probe, properties.getProbe().getInterval());
+    }
+
+}
@@ -0,0 +1,124 @@
+package br.com.itstoony.attornatus.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "attornatus.zipcode")
+public class ZipcodeProperties {
+
+    private Cache cache = new Cache();
+
+    private Index index = new Index();
+
+    private Lookup lookup = new Lookup();
+
+    private Probe probe = new Probe();
+
+    private Warmup warmup = new Warmup();
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        private long maximumSize = 10_000;
+
+        private Duration ttl = Duration.ofHours(24);
+
+        private Duration negativeTtl = Duration.ofMinutes(10);
+
+        /**
+         * Last good answers kept regardless of ttl, served while ViaCEP is failing or its circuit breaker is open.
+         */
+        private long staleMaximumSize = 100_000;
+
+        /**
+         * Localities kept interned, so addresses on the same zipcode share one instance and skip the database.
+         */
+        private long localityMaximumSize = 100_000;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Index {
+
+        /**
+         * Zipcode index file built by ZipcodeIndexBuilder; when unset every lookup goes to ViaCEP.
+         */
+        private String path;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Lookup {
+
+        /**
+         * Deadline of a ViaCEP lookup; past it the request fails instead of waiting for Feign's own timeouts.
+         */
+        private Duration timeout = Duration.ofSeconds(2);
+
+        private int threads = 16;
+
+        /**
+         * Lookups waiting for a thread; beyond it new lookups are refused right away.
+         */
+        private int queueCapacity = 200;
+
+        /**
+         * ViaCEP calls running at once on virtual threads, used instead of threads and queue-capacity when
+         * attornatus.threads.virtual is on; further lookups wait for one to end, up to the timeout.
+         */
+        private int virtualConcurrency = 200;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Probe {
+
+        /**
+         * How often ViaCEP is checked while its circuit breaker isn't closed.
+         */
+        private Duration interval = Duration.ofSeconds(15);
+
+        /**
+         * Zipcode known to exist, used for the checks.
+         */
+        private String zipcode = "01001000";
+
+    }
+
+    @Getter
+    @Setter
+    public static class Warmup {
+
+        /**
+         * Loads the most used stored zipcodes into the lookup cache at startup and every {@code interval} after;
+         * the pace toward ViaCEP is set by the zipcode-warmup rate limiter.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Zipcodes warmed per run, the most used first.
+         */
+        private int maximumZipcodes = 1000;
+
+        /**
+         * Kept below the cache ttl so the warmed zipcodes don't expire between runs.
+         */
+        private Duration interval = Duration.ofHours(12);
+
+        /**
+         * How long readiness waits for the startup run; past it the instance takes traffic anyway.
+         */
+        private Duration readinessTimeout = Duration.ofMinutes(3);
+
+    }
+
+}
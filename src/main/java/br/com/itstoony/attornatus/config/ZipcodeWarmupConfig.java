@@ -0,0 +1,33 @@
+package br.com.itstoony.attornatus.config;
+
+import br.com.itstoony.attornatus.service.ZipcodeWarmup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import java.time.Duration;
+
+/**
+ * Warms the zipcode cache as soon as the scheduler starts, then every {@code attornatus.zipcode.warmup.interval}.
+ */
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "attornatus.zipcode.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ZipcodeWarmupConfig implements SchedulingConfigurer {
+
+    private final ZipcodeWarmup zipcodeWarmup;
+
+    private final ZipcodeProperties properties;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new FixedDelayTask(zipcodeWarmup::run,
+                properties.getWarmup().getInterval(), Duration.ZERO));
+    }
+
+}
@@ -1,14 +1,31 @@
 package br.com.itstoony.attornatus.controller;
 
+import br.com.itstoony.attornatus.dto.AddressDTO;
+import br.com.itstoony.attornatus.dto.AddressImportResultDTO;
 import br.com.itstoony.attornatus.dto.AddressRecord;
+import br.com.itstoony.attornatus.dto.CursorPageDTO;
 import br.com.itstoony.attornatus.dto.PersonDTO;
 import br.com.itstoony.attornatus.dto.RegisteringPersonRecord;
+import br.com.itstoony.attornatus.dto.RegistrationResultDTO;
 import br.com.itstoony.attornatus.dto.UpdatingPersonRecord;
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+import br.com.itstoony.attornatus.exception.PreconditionFailedException;
+import br.com.itstoony.attornatus.mapper.AddressMapper;
+import br.com.itstoony.attornatus.mapper.PersonMapper;
 import br.com.itstoony.attornatus.model.Address;
 import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.service.AddressImportService;
 import br.com.itstoony.attornatus.service.AddressService;
+import br.com.itstoony.attornatus.service.PersonBatchService;
+import br.com.itstoony.attornatus.service.PersonExportService;
 import br.com.itstoony.attornatus.service.PersonService;
+import br.com.itstoony.attornatus.service.PersonViewCache;
+import br.com.itstoony.attornatus.util.KeysetCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -16,19 +33,31 @@ import jakarta.validation.Valid;
 import jakarta.websocket.server.PathParam;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/person")
@@ -39,21 +68,35 @@ public class PersonController {
 
     private final PersonService personService;
 
-    private final ModelMapper modelMapper;
+    private final PersonMapper personMapper;
+
+    private final AddressMapper addressMapper;
 
     private final AddressService addressService;
 
+    private final PersonBatchService personBatchService;
+
+    private final PersonExportService personExportService;
+
+    private final AddressImportService addressImportService;
+
+    private final PersonViewCache personViewCache;
+
+    private final MeterRegistry meterRegistry;
+
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Create a person")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Person registered successfully."),
-            @ApiResponse(responseCode = "400", description = "Failed to register a person.")
+            @ApiResponse(responseCode = "400", description = "Failed to register a person."),
+            @ApiResponse(responseCode = "504", description = "Zipcode couldn't be resolved in time.")
     })
     public ResponseEntity<PersonDTO> register(@RequestBody @Valid RegisteringPersonRecord dto) {
         log.info("Registering Person with CPF: {}", dto.cpf());
-        Address address = addressService.findFromDTO(dto);
-        Person savedPerson = personService.register(dto, address);
-        PersonDTO personDTO = modelMapper.map(savedPerson, PersonDTO.class);
+        // the zipcode is looked up while the CPF is checked
+        CompletableFuture<Optional<ViaCepResponseDTO>> zipcode = addressService.lookup(dto.zipcode());
+        Person savedPerson = personService.register(dto, () -> addressService.findFromDTO(dto, zipcode));
+        PersonDTO personDTO = timedMapping(() -> personMapper.toDTO(savedPerson));
 
         URI uri = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
                 .buildAndExpand(personDTO.getId()).toUri();
@@ -61,37 +104,86 @@ public class PersonController {
         return ResponseEntity.created(uri).body(personDTO);
     }
 
+    @PostMapping(value = "batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Register people in bulk")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see the status of each person."),
+            @ApiResponse(responseCode = "400", description = "Failed to process the batch.")
+    })
+    public ResponseEntity<List<RegistrationResultDTO>> registerBatch(@RequestBody List<RegisteringPersonRecord> records) {
+        log.info("Registering batch of {} people", records.size());
+        return ResponseEntity.ok(personBatchService.register(records));
+    }
+
     @GetMapping(value = "{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Get details of a person by id.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Person details successfully obtained."),
+            @ApiResponse(responseCode = "200", description = "Person details successfully obtained.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = PersonDTO.class))),
+            @ApiResponse(responseCode = "304", description = "Person unchanged since the passed ETag."),
             @ApiResponse(responseCode = "400", description = "Failed to get person details.")
     })
-    public ResponseEntity<PersonDTO> findById(@PathVariable(name = "id") Long id) {
+    public ResponseEntity<?> findById(@PathVariable(name = "id") Long id, WebRequest request) {
         log.info("Obtaining person for id: {}", id);
-        Person foundPerson = personService
-                .findById(id)
+        Optional<ResponseEntity<PersonDTO>> notModified = notModified(id, request);
+        if (notModified.isPresent()) {
+            return notModified.get();
+        }
+
+        if (personViewCache.isJsonEnabled()) {
+            // already serialized, written as is
+            PersonViewCache.JsonView foundPerson = personViewCache
+                    .findJson(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Person not found"));
+
+            return ResponseEntity.ok()
+                    .eTag(etag(foundPerson.version()))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(foundPerson.bytes());
+        }
+
+        PersonViewCache.View foundPerson = personViewCache
+                .find(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Person not found"));
 
-        return ResponseEntity.ok(modelMapper.map(foundPerson, PersonDTO.class));
+        return ResponseEntity.ok().eTag(etag(foundPerson.version())).body(foundPerson.person());
     }
 
     @PutMapping(value = "{id}", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Update a person.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Person successfully updated."),
-            @ApiResponse(responseCode = "400", description = "Failed to update person.")
+            @ApiResponse(responseCode = "400", description = "Failed to update person."),
+            @ApiResponse(responseCode = "409", description = "Person changed by another request meanwhile."),
+            @ApiResponse(responseCode = "412", description = "Person changed since the ETag passed in If-Match.")
     })
     public ResponseEntity<PersonDTO> update(@PathVariable(name = "id") Long id,
+                                            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                             @RequestBody UpdatingPersonRecord update) {
         log.info("Updating Person for id: {}", id);
         Person person = personService
                 .findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Person not found"));
 
-        Person updatedPerson = personService.update(person, update);
+        // the version checked here is the one the UPDATE is conditioned on, so a write in between fails too
+        if (!matches(ifMatch, person.getVersion())) {
+            throw new PreconditionFailedException("Person was changed, get it again");
+        }
 
-        return ResponseEntity.ok(modelMapper.map(updatedPerson, PersonDTO.class));
+        Person updatedPerson;
+        try {
+            updatedPerson = personService.update(person, update);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // without a version named in If-Match the race surfaces as a plain conflict
+            if (isConditional(ifMatch)) {
+                throw new PreconditionFailedException("Person was changed, get it again");
+            }
+            throw e;
+        }
+
+        PersonDTO personDTO = timedMapping(() -> personMapper.toDTO(updatedPerson));
+        return ResponseEntity.ok().eTag(etag(updatedPerson.getVersion())).body(personDTO);
     }
 
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
@@ -103,18 +195,55 @@ public class PersonController {
     public ResponseEntity<Page<PersonDTO>> find(@PathParam("name") String name, Pageable pageable) {
         log.info("Finding people by name: {}", name);
         Page<Person> page = personService.find(name, pageable);
-        List<PersonDTO> listDTO = page.stream().map(person -> modelMapper.map(person, PersonDTO.class)).toList();
+        List<PersonDTO> listDTO = timedMapping(() -> page.stream().map(personMapper::toDTO).toList());
 
         PageImpl<PersonDTO> pageDTO = new PageImpl<>(listDTO, pageable, page.getTotalElements());
 
         return ResponseEntity.ok(pageDTO);
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE, params = "cursor")
+    @Operation(summary = "Find people by params, paginated by cursor.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found people by parameters successfully obtained."),
+            @ApiResponse(responseCode = "400", description = "Failed to find people by parameters.")
+    })
+    public ResponseEntity<CursorPageDTO<PersonDTO>> findByCursor(@RequestParam(name = "name", required = false) String name,
+                                                                 @RequestParam(name = "cursor") String cursor,
+                                                                 @RequestParam(name = "size", defaultValue = "20") int size,
+                                                                 @RequestParam(name = "sort", defaultValue = "id") String sort) {
+        log.info("Finding people by name: {}, after cursor: {}", name, cursor);
+        KeysetCursor after = KeysetCursor.decode(cursor, sort);
+        Slice<Person> slice = personService.findAfter(name, after, size);
+
+        List<PersonDTO> listDTO = timedMapping(() -> slice.stream().map(personMapper::toDTO).toList());
+        String next = nextCursor(slice, person -> new KeysetCursor(after.sort(),
+                "name".equals(after.sort()) ? person.getName() : null, person.getId()));
+
+        return ResponseEntity.ok(new CursorPageDTO<>(listDTO, listDTO.size(), next));
+    }
+
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all people as newline-delimited JSON.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "People streamed successfully.")
+    })
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(name = "addresses", defaultValue = "false") boolean includeAddresses) {
+        log.info("Exporting all people, including addresses: {}", includeAddresses);
+        StreamingResponseBody body = output -> personExportService.export(includeAddresses, output);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @PostMapping(value = "{id}/address", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Add a new address to a person")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Address added successfully."),
-            @ApiResponse(responseCode = "400", description = "Failed to add address.")
+            @ApiResponse(responseCode = "400", description = "Failed to add address."),
+            @ApiResponse(responseCode = "504", description = "Zipcode couldn't be resolved in time.")
     })
     public ResponseEntity<PersonDTO> addAddress(@PathVariable(name = "id") Long id,
                                               @RequestBody @Valid AddressRecord dto) {
@@ -127,20 +256,70 @@ public class PersonController {
 
         Person updatedPerson = personService.addAddress(person, address);
 
-        return ResponseEntity.ok(modelMapper.map(updatedPerson, PersonDTO.class));
+        return ResponseEntity.ok(timedMapping(() -> personMapper.toDTO(updatedPerson)));
+    }
+
+    @PostMapping(value = "address/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Import addresses from a CSV of person id, zipcode and number rows")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "File processed, see the rows that failed."),
+            @ApiResponse(responseCode = "400", description = "Failed to process the file.")
+    })
+    public ResponseEntity<AddressImportResultDTO> importAddresses(@RequestParam("file") MultipartFile file)
+            throws IOException {
+        log.info("Importing addresses from {} ({} bytes)", file.getOriginalFilename(), file.getSize());
+
+        try (InputStream input = file.getInputStream()) {
+            return ResponseEntity.ok(addressImportService.importCsv(input));
+        }
     }
 
     @GetMapping(value = "{id}/address", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Find all addresses from person.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Found addresses by person successfully obtained."),
+            @ApiResponse(responseCode = "304", description = "Addresses unchanged since the passed ETag."),
             @ApiResponse(responseCode = "400", description = "Failed to find addresses by person .")
     })
-    public ResponseEntity<Page<Address>> listAllAddress(@PathVariable(name = "id") Long id,
-                                                        Pageable pageable) {
+    public ResponseEntity<Page<AddressDTO>> listAllAddress(@PathVariable(name = "id") Long id,
+                                                           Pageable pageable, WebRequest request) {
         log.info("Listing all addresses from Person with id: {}", id);
+        Optional<ResponseEntity<Page<AddressDTO>>> notModified = notModified(id, request);
+        if (notModified.isPresent()) {
+            return notModified.get();
+        }
+
         Person person = personService.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Person not found"));
-        return ResponseEntity.ok(addressService.findAllAddress(person, pageable));
+        return ResponseEntity.ok()
+                .eTag(etag(person.getVersion()))
+                .body(addressService.findAllAddress(person, pageable).map(addressMapper::toDTO));
+    }
+
+    @GetMapping(value = "{id}/address", produces = MediaType.APPLICATION_JSON_VALUE, params = "cursor")
+    @Operation(summary = "Find all addresses from person, paginated by cursor.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found addresses by person successfully obtained."),
+            @ApiResponse(responseCode = "400", description = "Failed to find addresses by person .")
+    })
+    public ResponseEntity<CursorPageDTO<AddressDTO>> listAllAddressByCursor(@PathVariable(name = "id") Long id,
+                                                                            @RequestParam(name = "cursor") String cursor,
+                                                                            @RequestParam(name = "size", defaultValue = "20") int size,
+                                                                            WebRequest request) {
+        log.info("Listing addresses from Person with id: {}, after cursor: {}", id, cursor);
+        Optional<ResponseEntity<CursorPageDTO<AddressDTO>>> notModified = notModified(id, request);
+        if (notModified.isPresent()) {
+            return notModified.get();
+        }
+
+        Person person = personService.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Person not found"));
+        Slice<Address> slice = addressService.findAllAddressAfter(person, KeysetCursor.decode(cursor, "id"), size);
+
+        String next = nextCursor(slice, address -> new KeysetCursor("id", null, address.getId()));
+        List<AddressDTO> listDTO = slice.stream().map(addressMapper::toDTO).toList();
+        return ResponseEntity.ok()
+                .eTag(etag(person.getVersion()))
+                .body(new CursorPageDTO<>(listDTO, listDTO.size(), next));
     }
 
     @PatchMapping(value = "{personID}/address/{addressID}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -159,7 +338,68 @@ public class PersonController {
 
         Person updatedPerson = personService.setAddressAsMain(person, address);
 
-        return ResponseEntity.ok(modelMapper.map(updatedPerson, PersonDTO.class));
+        return ResponseEntity.ok(timedMapping(() -> personMapper.toDTO(updatedPerson)));
+    }
+
+    /**
+     * A 304 when If-None-Match still matches the person's version, which is checked without loading
+     * addresses; empty when the request isn't conditional or the client's copy is outdated.
+     */
+    private <T> Optional<ResponseEntity<T>> notModified(Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return Optional.empty();
+        }
+
+        Long version = personViewCache.findVersion(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Person not found"));
+        String etag = etag(version);
+        if (!request.checkNotModified(etag)) {
+            return Optional.empty();
+        }
+        return Optional.of(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+    }
+
+    static String etag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Strong comparison of an If-Match header with the person's current ETag; a missing header matches.
+     */
+    static boolean matches(String ifMatch, Long version) {
+        if (!isConditional(ifMatch)) {
+            return true;
+        }
+
+        String etag = etag(version);
+        return Arrays.stream(ifMatch.split(","))
+                .map(String::trim)
+                .anyMatch(etag::equals);
+    }
+
+    /**
+     * Whether an If-Match header names versions, rather than being missing or matching any.
+     */
+    static boolean isConditional(String ifMatch) {
+        return ifMatch != null && !ifMatch.isBlank() && !ifMatch.trim().equals("*");
+    }
+
+    /**
+     * Times the mapping of a response's people, however many, once under person.mapping.
+     */
+    private <T> T timedMapping(Supplier<T> mapping) {
+        return Timer.builder("person.mapping")
+                .description("Mapping of the people of a response, addresses included, to PersonDTOs")
+                .register(meterRegistry)
+                .record(mapping);
+    }
+
+    private static <T> String nextCursor(Slice<T> slice, Function<T, KeysetCursor> cursorOf) {
+        if (!slice.hasNext()) {
+            return null;
+        }
+        List<T> content = slice.getContent();
+        return cursorOf.apply(content.get(content.size() - 1)).encode();
     }
 
 }
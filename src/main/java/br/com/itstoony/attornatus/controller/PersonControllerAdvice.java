@@ -2,8 +2,12 @@ package br.com.itstoony.attornatus.controller;
 
 import br.com.itstoony.attornatus.exception.ApiErrors;
 import br.com.itstoony.attornatus.exception.BusinessException;
+import br.com.itstoony.attornatus.exception.PreconditionFailedException;
+import br.com.itstoony.attornatus.exception.ZipcodeLookupTimeoutException;
+import br.com.itstoony.attornatus.exception.ZipcodeUnavailableException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -33,4 +37,32 @@ public class PersonControllerAdvice {
         return new ApiErrors(ex);
     }
 
+    /**
+     * A write that raced another one without being conditional; conditional ones fail with
+     * {@link PreconditionFailedException} instead.
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiErrors handleOptimisticLockingExceptions(ObjectOptimisticLockingFailureException ex) {
+        return new ApiErrors(ex);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ApiErrors handlePreconditionFailedExceptions(PreconditionFailedException ex) {
+        return new ApiErrors(ex);
+    }
+
+    @ExceptionHandler(ZipcodeLookupTimeoutException.class)
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public ApiErrors handleZipcodeLookupTimeoutExceptions(ZipcodeLookupTimeoutException ex) {
+        return new ApiErrors(ex);
+    }
+
+    @ExceptionHandler(ZipcodeUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiErrors handleZipcodeUnavailableExceptions(ZipcodeUnavailableException ex) {
+        return new ApiErrors(ex);
+    }
+
 }
@@ -1,12 +1,12 @@
 package br.com.itstoony.attornatus.dto;
 
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.NoArgsConstructor;
+import lombok.*;
 
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@Getter
+@Setter
 public class AddressDTO {
 
     private Long id;
@@ -19,4 +19,6 @@ public class AddressDTO {
 
     private String city;
 
+    private Boolean main;
+
 }
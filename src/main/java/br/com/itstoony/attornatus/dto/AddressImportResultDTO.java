@@ -0,0 +1,41 @@
+package br.com.itstoony.attornatus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class AddressImportResultDTO {
+
+    private long rows;
+
+    private long imported;
+
+    private long failed;
+
+    /**
+     * Failed rows, up to a limit; {@link #failed} counts them all.
+     */
+    private List<RowError> errors;
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    public static class RowError {
+
+        /**
+         * Line of the row in the file, starting at 1.
+         */
+        private long line;
+
+        private List<String> errors;
+
+    }
+
+}
@@ -0,0 +1,21 @@
+package br.com.itstoony.attornatus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+
+    private List<T> content;
+
+    private int size;
+
+    /**
+     * Cursor of the following page, null on the last one.
+     */
+    private String next;
+
+}
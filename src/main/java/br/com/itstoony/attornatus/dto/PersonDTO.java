@@ -1,6 +1,5 @@
 package br.com.itstoony.attornatus.dto;
 
-import br.com.itstoony.attornatus.model.Address;
 import lombok.*;
 
 import java.time.LocalDate;
@@ -21,6 +20,6 @@ public class PersonDTO {
 
     private LocalDate birthDay;
 
-    private Set<Address> addressSet;
+    private Set<AddressDTO> addressSet;
 
 }
@@ -0,0 +1,36 @@
+package br.com.itstoony.attornatus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class RegistrationResultDTO {
+
+    public enum Status { CREATED, FAILED }
+
+    private int index;
+
+    private String cpf;
+
+    private Status status;
+
+    private Long id;
+
+    private List<String> errors;
+
+    public static RegistrationResultDTO created(int index, String cpf, Long id) {
+        return new RegistrationResultDTO(index, cpf, Status.CREATED, id, List.of());
+    }
+
+    public static RegistrationResultDTO failed(int index, String cpf, List<String> errors) {
+        return new RegistrationResultDTO(index, cpf, Status.FAILED, null, errors);
+    }
+
+}
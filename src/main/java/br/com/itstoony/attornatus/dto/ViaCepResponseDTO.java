@@ -1,14 +1,19 @@
 package br.com.itstoony.attornatus.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 
 @Getter
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ViaCepResponseDTO {
 
     private String cep;
     private String logradouro;
     private String localidade;
+    private Boolean erro;
 
 }
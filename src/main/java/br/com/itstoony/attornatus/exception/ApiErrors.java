@@ -1,5 +1,6 @@
 package br.com.itstoony.attornatus.exception;
 
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -24,6 +25,22 @@ public class ApiErrors {
         this.errors = Collections.singletonList(ex.getMessage());
     }
 
+    public ApiErrors(ObjectOptimisticLockingFailureException ex) {
+        this.errors = Collections.singletonList("Person was changed by another request, get it again");
+    }
+
+    public ApiErrors(PreconditionFailedException ex) {
+        this.errors = Collections.singletonList(ex.getMessage());
+    }
+
+    public ApiErrors(ZipcodeLookupTimeoutException ex) {
+        this.errors = Collections.singletonList(ex.getMessage());
+    }
+
+    public ApiErrors(ZipcodeUnavailableException ex) {
+        this.errors = Collections.singletonList(ex.getMessage());
+    }
+
     public List<String> getErrors() {
         return errors;
     }
@@ -0,0 +1,12 @@
+package br.com.itstoony.attornatus.exception;
+
+/**
+ * The person changed since the version a conditional request (If-Match) was made against.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String s) {
+        super(s);
+    }
+
+}
@@ -0,0 +1,12 @@
+package br.com.itstoony.attornatus.exception;
+
+/**
+ * A zipcode couldn't be resolved in time because ViaCEP was too slow or too many lookups were pending.
+ */
+public class ZipcodeLookupTimeoutException extends RuntimeException {
+
+    public ZipcodeLookupTimeoutException(String s) {
+        super(s);
+    }
+
+}
@@ -0,0 +1,12 @@
+package br.com.itstoony.attornatus.exception;
+
+/**
+ * ViaCEP's circuit breaker is open and there's no earlier answer for the zipcode to fall back on.
+ */
+public class ZipcodeUnavailableException extends RuntimeException {
+
+    public ZipcodeUnavailableException(String s) {
+        super(s);
+    }
+
+}
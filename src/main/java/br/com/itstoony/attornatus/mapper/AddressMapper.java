@@ -0,0 +1,38 @@
+package br.com.itstoony.attornatus.mapper;
+
+import br.com.itstoony.attornatus.dto.AddressDTO;
+import br.com.itstoony.attornatus.model.Address;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+public class AddressMapper {
+
+    public AddressDTO toDTO(Address address) {
+        if (address == null) {
+            return null;
+        }
+
+        return new AddressDTO(
+                address.getId(),
+                address.getStreet(),
+                address.getZipcode(),
+                address.getNumber(),
+                address.getCity(),
+                address.getMain());
+    }
+
+    public Set<AddressDTO> toDTOs(Collection<Address> addresses) {
+        if (addresses == null) {
+            return null;
+        }
+
+        Set<AddressDTO> dtos = new HashSet<>();
+        for (Address address : addresses) {
+            dtos.add(toDTO(address));
+        }
+        return dtos;
+    }
+
+}
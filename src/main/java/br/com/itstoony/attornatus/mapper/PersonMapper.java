@@ -0,0 +1,31 @@
+package br.com.itstoony.attornatus.mapper;
+
+import br.com.itstoony.attornatus.dto.PersonDTO;
+import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Person;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class PersonMapper {
+
+    private final AddressMapper addressMapper;
+
+    public PersonDTO toDTO(Person person) {
+        return person == null ? null : toDTO(person, person.getAddressSet());
+    }
+
+    /**
+     * Maps a person with addresses loaded apart from it; null addresses leave the DTO's addressSet null.
+     */
+    public PersonDTO toDTO(Person person, Collection<Address> addresses) {
+        return new PersonDTO(
+                person.getId(),
+                person.getName(),
+                person.getCpf(),
+                person.getBirthDay(),
+                addressMapper.toDTOs(addresses));
+    }
+
+}
@@ -3,6 +3,8 @@ package br.com.itstoony.attornatus.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 @Builder
 @NoArgsConstructor
@@ -10,30 +12,59 @@ import lombok.*;
 @Getter
 @Setter
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = Address.MAIN_CONSTRAINT, columnNames = "main_of"))
 public class Address {
 
+    public static final String MAIN_CONSTRAINT = "uk_address_main_of";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "address_seq")
+    @SequenceGenerator(name = "address_seq", sequenceName = "address_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
-    @Column(name = "street")
-    private String street;
-
-    @Column(name = "zipcode")
-    private String zipcode;
+    /**
+     * Street, city and zipcode, shared with every other address on the same zipcode.
+     */
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "locality_id")
+    @Fetch(FetchMode.JOIN)
+    private Locality locality;
 
     @Column(name = "number")
     private Integer number;
 
-    @Column(name = "city")
-    private String city;
-
     @Column(name = "main")
     private Boolean main;
 
+    /**
+     * The person id while this is their main address, null otherwise. Being unique, it lets
+     * the database refuse a second main address for the same person.
+     */
+    @JsonIgnore
+    @Column(name = "main_of")
+    private Long mainOf;
+
     @JsonIgnore
     @ManyToOne
     private Person person;
 
+    public String getStreet() {
+        return locality == null ? null : locality.getStreet();
+    }
+
+    public String getZipcode() {
+        return locality == null ? null : locality.getZipcode();
+    }
+
+    public String getCity() {
+        return locality == null ? null : locality.getCity();
+    }
+
+    @PrePersist
+    @PreUpdate
+    void syncMainOf() {
+        mainOf = Boolean.TRUE.equals(main) && person != null ? person.getId() : null;
+    }
+
 }
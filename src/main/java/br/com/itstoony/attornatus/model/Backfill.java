@@ -0,0 +1,39 @@
+package br.com.itstoony.attornatus.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * A data backfill that ran to completion, so later startups of any instance skip it.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Entity
+@Table(name = "backfill")
+public class Backfill implements Persistable<String> {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    @Override
+    public String getId() {
+        return name;
+    }
+
+    /**
+     * Rows are only inserted, a second insert of the same backfill fails on the primary key.
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+}
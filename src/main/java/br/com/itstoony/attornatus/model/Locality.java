@@ -0,0 +1,37 @@
+package br.com.itstoony.attornatus.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Street and city of a zipcode, as given by ViaCEP. One row per zipcode, shared by every address on it;
+ * never updated once written.
+ */
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Entity
+@Immutable
+@Table(uniqueConstraints = @UniqueConstraint(name = Locality.ZIPCODE_CONSTRAINT, columnNames = "zipcode"))
+public class Locality {
+
+    public static final String ZIPCODE_CONSTRAINT = "uk_locality_zipcode";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "locality_seq")
+    @SequenceGenerator(name = "locality_seq", sequenceName = "locality_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "zipcode")
+    private String zipcode;
+
+    @Column(name = "street")
+    private String street;
+
+    @Column(name = "city")
+    private String city;
+
+}
@@ -12,10 +12,15 @@ import java.util.Set;
 @Getter
 @Setter
 @Entity
+@Table(indexes = @Index(name = "idx_person_name_id", columnList = "name, id"),
+        uniqueConstraints = @UniqueConstraint(name = Person.CPF_CONSTRAINT, columnNames = "cpf"))
 public class Person {
 
+    public static final String CPF_CONSTRAINT = "uk_person_cpf";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
+    @SequenceGenerator(name = "person_seq", sequenceName = "person_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name")
@@ -27,7 +32,14 @@ public class Person {
     @Column(name = "birth_day")
     private LocalDate birthDay;
 
-    @OneToMany(mappedBy = "person")
+    /**
+     * Bumped by every change to the person or to their addresses; person ETags are derived from it.
+     */
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    @OneToMany(mappedBy = "person", cascade = CascadeType.PERSIST)
     private Set<Address> addressSet;
 
 }
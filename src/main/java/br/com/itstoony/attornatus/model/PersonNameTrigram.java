@@ -0,0 +1,53 @@
+package br.com.itstoony.attornatus.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+
+/**
+ * One three-character slice of a lowercased person name, used to answer substring searches
+ * through an index instead of scanning every name.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Entity
+@Table(name = "person_name_trigram", indexes = {
+        @Index(name = "idx_person_name_trigram", columnList = "trigram, person_id"),
+        @Index(name = "idx_person_name_trigram_person", columnList = "person_id")
+})
+public class PersonNameTrigram implements Persistable<PersonNameTrigram.Key> {
+
+    @EmbeddedId
+    private Key id;
+
+    public PersonNameTrigram(String trigram, Long personId) {
+        this(new Key(trigram, personId));
+    }
+
+    /**
+     * Rows are only inserted or bulk deleted, never merged.
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @Embeddable
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Getter
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        @Column(name = "trigram", length = 3)
+        private String trigram;
+
+        @Column(name = "person_id")
+        private Long personId;
+
+    }
+
+}
@@ -2,13 +2,50 @@ package br.com.itstoony.attornatus.repository;
 
 import br.com.itstoony.attornatus.model.Address;
 import br.com.itstoony.attornatus.model.Person;
-import feign.Param;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface AddressRepository extends JpaRepository<Address, Long> {
 
 
+    @EntityGraph(attributePaths = "locality")
     Page<Address> findByPerson(@Param("person") Person person, Pageable pageable);
+
+    @EntityGraph(attributePaths = "locality")
+    Slice<Address> findByPersonAndIdGreaterThanOrderByIdAsc(Person person, Long id, Pageable pageable);
+
+    /**
+     * Stored zipcodes, the most used first.
+     */
+    @Query("SELECT l.zipcode FROM Address a JOIN a.locality l GROUP BY l.zipcode ORDER BY COUNT(a) DESC")
+    List<String> findMostUsedZipcodes(Pageable pageable);
+
+    @Query("SELECT a FROM Address a JOIN FETCH a.locality WHERE a.person.id IN :ids")
+    List<Address> findByPersonIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Clears the main flag of a person's addresses other than the passed one, touching only the current main row.
+     */
+    @Modifying
+    @Query("UPDATE Address a SET a.main = false, a.mainOf = null " +
+            "WHERE a.person.id = :personId AND a.main = true AND a.id <> :addressId")
+    int clearMain(@Param("personId") Long personId, @Param("addressId") Long addressId);
+
+    /**
+     * Flags the passed address as main, if it belongs to the passed person. Returns the number of rows changed.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Address a SET a.main = true, a.mainOf = :personId " +
+            "WHERE a.person.id = :personId AND a.id = :addressId")
+    int markMain(@Param("personId") Long personId, @Param("addressId") Long addressId);
+
 }
@@ -0,0 +1,7 @@
+package br.com.itstoony.attornatus.repository;
+
+import br.com.itstoony.attornatus.model.Backfill;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BackfillRepository extends JpaRepository<Backfill, String> {
+}
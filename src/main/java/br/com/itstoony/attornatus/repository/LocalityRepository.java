@@ -0,0 +1,12 @@
+package br.com.itstoony.attornatus.repository;
+
+import br.com.itstoony.attornatus.model.Locality;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface LocalityRepository extends JpaRepository<Locality, Long> {
+
+    Optional<Locality> findByZipcode(String zipcode);
+
+}
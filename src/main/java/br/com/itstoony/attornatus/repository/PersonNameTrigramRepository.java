@@ -0,0 +1,24 @@
+package br.com.itstoony.attornatus.repository;
+
+import br.com.itstoony.attornatus.model.PersonNameTrigram;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface PersonNameTrigramRepository extends JpaRepository<PersonNameTrigram, PersonNameTrigram.Key> {
+
+    @Modifying
+    @Query("DELETE FROM PersonNameTrigram t WHERE t.id.personId = :personId")
+    void deleteByPersonId(@Param("personId") Long personId);
+
+    /**
+     * Inserts the row unless it's already there, so instances backfilling at the same time don't collide.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO person_name_trigram (trigram, person_id) SELECT :trigram, :personId FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM person_name_trigram WHERE trigram = :trigram AND person_id = :personId)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("trigram") String trigram, @Param("personId") Long personId);
+
+}
@@ -1,18 +1,80 @@
 package br.com.itstoony.attornatus.repository;
 
 import br.com.itstoony.attornatus.model.Person;
-import feign.Param;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface PersonRepository extends JpaRepository<Person, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface PersonRepository extends JpaRepository<Person, Long>, PersonRepositoryCustom {
 
     Boolean existsByCpf(String cpf);
 
     @Query("SELECT p FROM Person p WHERE lower(p.name) like lower(concat('%', :name, '%'))")
     Page<Person> findByName(@Param("name") String name, Pageable pageable);
 
+    /**
+     * Same result as {@link #findByName}, but candidates come from the trigram index: only people having
+     * every trigram of the searched name are compared with it.
+     */
+    @Query("SELECT p FROM Person p WHERE p.id IN (" +
+            "SELECT t.id.personId FROM PersonNameTrigram t WHERE t.id.trigram IN :trigrams " +
+            "GROUP BY t.id.personId HAVING COUNT(t) = :trigramCount) " +
+            "AND lower(p.name) like lower(concat('%', :name, '%'))")
+    Page<Person> findByNameTrigrams(@Param("name") String name,
+                                    @Param("trigrams") Collection<String> trigrams,
+                                    @Param("trigramCount") long trigramCount,
+                                    Pageable pageable);
+
+    @Query("SELECT p FROM Person p WHERE p.id > :after AND NOT EXISTS (" +
+            "SELECT t FROM PersonNameTrigram t WHERE t.id.personId = p.id) ORDER BY p.id")
+    List<Person> findWithoutTrigrams(@Param("after") Long after, Pageable pageable);
+
+    @Query("SELECT p.version FROM Person p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Bumps the version of a person whose addresses changed, so their ETag changes too.
+     */
+    @Modifying
+    @Query("UPDATE Person p SET p.version = p.version + 1 WHERE p.id = :id")
+    int incrementVersion(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Person p SET p.version = p.version + 1 WHERE p.id IN :ids")
+    int incrementVersions(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Person p WHERE p.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.cpf FROM Person p WHERE p.cpf IN :cpfs")
+    Set<String> findExistingCpfs(@Param("cpfs") Collection<String> cpfs);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Person p ORDER BY p.id")
+    Stream<Person> streamAll();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.cpf FROM Person p")
+    Stream<String> streamCpfs();
 
 }
@@ -0,0 +1,18 @@
+package br.com.itstoony.attornatus.repository;
+
+import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.util.KeysetCursor;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+
+public interface PersonRepositoryCustom {
+
+    /**
+     * Keyset page of people after the cursor, ordered by its sort ("id" or "name") and then by id.
+     * When a name is passed it filters like {@link PersonRepository#findByName}, narrowed by the
+     * trigram index whenever trigrams are given.
+     */
+    Slice<Person> findAfter(String name, Collection<String> trigrams, KeysetCursor cursor, int size);
+
+}
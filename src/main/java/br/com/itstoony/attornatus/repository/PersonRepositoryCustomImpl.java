@@ -0,0 +1,62 @@
+package br.com.itstoony.attornatus.repository;
+
+import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PersonRepositoryCustomImpl implements PersonRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Person> findAfter(String name, Collection<String> trigrams, KeysetCursor cursor, int size) {
+        boolean byName = "name".equals(cursor.sort());
+        StringBuilder jpql = new StringBuilder("SELECT p FROM Person p WHERE 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+
+        if (name != null) {
+            jpql.append(" AND lower(p.name) like lower(concat('%', :name, '%'))");
+            parameters.put("name", name);
+        }
+
+        if (trigrams != null && !trigrams.isEmpty()) {
+            jpql.append(" AND p.id IN (SELECT t.id.personId FROM PersonNameTrigram t WHERE t.id.trigram IN :trigrams")
+                    .append(" GROUP BY t.id.personId HAVING COUNT(t) = :trigramCount)");
+            parameters.put("trigrams", trigrams);
+            parameters.put("trigramCount", (long) trigrams.size());
+        }
+
+        if (!cursor.isFirst()) {
+            if (byName) {
+                jpql.append(" AND (p.name > :afterKey OR (p.name = :afterKey AND p.id > :afterId))");
+                parameters.put("afterKey", cursor.key());
+            } else {
+                jpql.append(" AND p.id > :afterId");
+            }
+            parameters.put("afterId", cursor.id());
+        }
+
+        jpql.append(byName ? " ORDER BY p.name, p.id" : " ORDER BY p.id");
+
+        TypedQuery<Person> query = entityManager.createQuery(jpql.toString(), Person.class);
+        parameters.forEach(query::setParameter);
+        query.setMaxResults(size + 1);
+
+        List<Person> people = query.getResultList();
+        boolean hasNext = people.size() > size;
+
+        return new SliceImpl<>(hasNext ? people.subList(0, size) : people, PageRequest.ofSize(size), hasNext);
+    }
+
+}
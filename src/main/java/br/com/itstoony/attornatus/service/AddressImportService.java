@@ -0,0 +1,260 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.config.AddressImportProperties;
+import br.com.itstoony.attornatus.dto.AddressImportResultDTO;
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.repository.AddressRepository;
+import br.com.itstoony.attornatus.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Attaches addresses from a CSV of {@code person id, zipcode, number} rows, comma or semicolon separated,
+ * with an optional header line. The file is read line by line and handled in chunks: each chunk checks its
+ * people with one query, resolves its distinct zipcodes with a bounded number of lookups in flight, and
+ * inserts its addresses in one transaction so Hibernate sends them as JDBC batches. Imported addresses are
+ * never made main. Only the current chunk and the listed errors are held in memory.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AddressImportService {
+
+    private final PersonRepository personRepository;
+
+    private final AddressRepository addressRepository;
+
+    private final AddressService addressService;
+
+    private final ZipcodeService zipcodeService;
+
+    private final PersonViewCache personViewCache;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EntityManager entityManager;
+
+    private final AddressImportProperties properties;
+
+    public AddressImportResultDTO importCsv(InputStream input) throws IOException {
+        Report report = new Report(properties.getMaxReportedErrors());
+        List<Row> chunk = new ArrayList<>(properties.getChunkSize());
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1) {
+                line = stripByteOrderMark(line);
+                if (isHeader(line)) {
+                    continue;
+                }
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+
+            report.rows++;
+            Row row = parse(lineNumber, line, report);
+            if (row == null) {
+                continue;
+            }
+
+            chunk.add(row);
+            if (chunk.size() == properties.getChunkSize()) {
+                importChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+
+        log.info("Address import: {} of {} rows imported", report.imported, report.rows);
+        return report.toDTO();
+    }
+
+    private void importChunk(List<Row> chunk, Report report) {
+        Set<Long> personIds = new HashSet<>();
+        chunk.forEach(row -> personIds.add(row.personId()));
+        Set<Long> existing = personRepository.findExistingIds(personIds);
+
+        List<Row> pending = new ArrayList<>();
+        for (Row row : chunk) {
+            if (existing.contains(row.personId())) {
+                pending.add(row);
+            } else {
+                report.fail(row.line(), List.of("Person not found"));
+            }
+        }
+
+        // every lookup is over before the transaction starts, no connection is held during ViaCEP calls
+        Map<String, CompletableFuture<Optional<ViaCepResponseDTO>>> lookups = lookup(pending);
+
+        List<Row> resolved = new ArrayList<>();
+        List<Address> addresses = new ArrayList<>();
+        for (Row row : pending) {
+            Optional<ViaCepResponseDTO> zipcode;
+            try {
+                zipcode = lookups.get(row.zipcode()).join();
+            } catch (CompletionException e) {
+                report.fail(row.line(), List.of("Zipcode lookup failed"));
+                continue;
+            }
+
+            if (zipcode.isEmpty()) {
+                report.fail(row.line(), List.of("Zipcode not found"));
+                continue;
+            }
+            resolved.add(row);
+            addresses.add(addressService.newAddress(zipcode.get(), row.number()));
+        }
+
+        if (resolved.isEmpty()) {
+            return;
+        }
+
+        Set<Long> touched = new HashSet<>();
+        resolved.forEach(row -> touched.add(row.personId()));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < resolved.size(); i++) {
+                    addresses.get(i).setPerson(personRepository.getReferenceById(resolved.get(i).personId()));
+                }
+                addressRepository.saveAll(addresses);
+                personRepository.incrementVersions(touched);
+            });
+            report.imported += resolved.size();
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Address import chunk failed: {}", e.getMostSpecificCause().getMessage());
+            resolved.forEach(row -> report.fail(row.line(), List.of("Address could not be saved, was the person removed?")));
+        } finally {
+            // the inserted addresses aren't needed anymore, keep them from piling up in the request's persistence context
+            entityManager.clear();
+        }
+        personViewCache.invalidateAll(touched);
+    }
+
+    /**
+     * Starts the lookup of each distinct zipcode, keeping at most {@code lookupParallelism} of them in flight.
+     */
+    private Map<String, CompletableFuture<Optional<ViaCepResponseDTO>>> lookup(List<Row> rows) {
+        Semaphore permits = new Semaphore(properties.getLookupParallelism());
+        Map<String, CompletableFuture<Optional<ViaCepResponseDTO>>> lookups = new HashMap<>();
+
+        for (Row row : rows) {
+            if (lookups.containsKey(row.zipcode())) {
+                continue;
+            }
+
+            permits.acquireUninterruptibly();
+            CompletableFuture<Optional<ViaCepResponseDTO>> lookup = zipcodeService.findAsync(row.zipcode());
+            lookup.whenComplete((zipcode, e) -> permits.release());
+            lookups.put(row.zipcode(), lookup);
+        }
+        return lookups;
+    }
+
+    private static Row parse(long line, String text, Report report) {
+        String[] fields = text.split("[,;]", -1);
+        if (fields.length != 3) {
+            report.fail(line, List.of("Row must have a person id, a zipcode and a number"));
+            return null;
+        }
+
+        List<String> errors = new ArrayList<>();
+
+        Long personId = null;
+        try {
+            personId = Long.valueOf(unquote(fields[0]));
+        } catch (NumberFormatException e) {
+            errors.add("Person id must be a number");
+        }
+
+        String zipcode = ZipcodeService.normalize(unquote(fields[1]));
+        if (zipcode.length() != 8) {
+            errors.add("Zipcode must have 8 digits");
+        }
+
+        Integer number = null;
+        try {
+            number = Integer.valueOf(unquote(fields[2]));
+        } catch (NumberFormatException e) {
+            errors.add("Number must be a number");
+        }
+
+        if (!errors.isEmpty()) {
+            report.fail(line, errors);
+            return null;
+        }
+        return new Row(line, personId, zipcode, number);
+    }
+
+    private static boolean isHeader(String line) {
+        String first = unquote(line.split("[,;]", -1)[0]);
+        return !first.isEmpty() && !Character.isDigit(first.charAt(0));
+    }
+
+    private static String unquote(String field) {
+        String trimmed = field.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    private static String stripByteOrderMark(String line) {
+        return line.startsWith("\uFEFF") ? line.substring(1) : line;
+    }
+
+    private record Row(long line, Long personId, String zipcode, Integer number) {
+    }
+
+    private static class Report {
+
+        private final int maxReportedErrors;
+
+        private final List<AddressImportResultDTO.RowError> errors = new ArrayList<>();
+
+        private long rows;
+
+        private long imported;
+
+        private long failed;
+
+        Report(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void fail(long line, List<String> rowErrors) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new AddressImportResultDTO.RowError(line, rowErrors));
+            }
+        }
+
+        AddressImportResultDTO toDTO() {
+            errors.sort(Comparator.comparingLong(AddressImportResultDTO.RowError::getLine));
+            return new AddressImportResultDTO(rows, imported, failed, errors);
+        }
+
+    }
+
+}
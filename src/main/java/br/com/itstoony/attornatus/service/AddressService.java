@@ -1,6 +1,5 @@
 package br.com.itstoony.attornatus.service;
 
-import br.com.itstoony.attornatus.client.ViaCepClient;
 import br.com.itstoony.attornatus.dto.AddressRecord;
 import br.com.itstoony.attornatus.dto.RegisteringPersonRecord;
 import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
@@ -8,50 +7,68 @@ import br.com.itstoony.attornatus.exception.BusinessException;
 import br.com.itstoony.attornatus.model.Address;
 import br.com.itstoony.attornatus.model.Person;
 import br.com.itstoony.attornatus.repository.AddressRepository;
+import br.com.itstoony.attornatus.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
 public class AddressService {
 
-    private final ViaCepClient client;
+    private final ZipcodeService zipcodeService;
 
     private final AddressRepository addressRepository;
 
+    private final LocalityService localityService;
 
     public Address findFromDTO(RegisteringPersonRecord dto) {
-        validateDTO(dto.zipcode(), dto.number());
+        return findFromDTO(dto, lookup(dto.zipcode()));
+    }
 
-        ViaCepResponseDTO response = client.getZipcode(dto.zipcode());
-        Address address = Address.builder()
-                .zipcode(response.getCep())
-                .street(response.getLogradouro())
-                .city(response.getLocalidade())
-                .number(dto.number())
-                .main(false)
-                .build();
+    /**
+     * Builds the address of a registration from a zipcode lookup started earlier with {@link #lookup},
+     * waiting for it if it's still running. The address isn't saved: it's inserted along with its person.
+     */
+    public Address findFromDTO(RegisteringPersonRecord dto, CompletableFuture<Optional<ViaCepResponseDTO>> lookup) {
+        validateDTO(dto.zipcode(), dto.number());
 
-        return addressRepository.save(address);
+        ViaCepResponseDTO response = findZipcode(lookup);
+        return newAddress(response, dto.number());
     }
 
     public Address findFromDTO(AddressRecord record) {
         validateDTO(record.zipcode(), record.number());
 
-        ViaCepResponseDTO response = client.getZipcode(record.zipcode());
-        Address address = Address.builder()
-                .zipcode(response.getCep())
-                .street(response.getLogradouro())
-                .city(response.getLocalidade())
-                .number(record.number())
+        ViaCepResponseDTO response = findZipcode(lookup(record.zipcode()));
+        return newAddress(response, record.number());
+    }
+
+    /**
+     * Starts resolving a zipcode in the background, bounded by the lookup deadline.
+     */
+    public CompletableFuture<Optional<ViaCepResponseDTO>> lookup(String zipcode) {
+        return zipcodeService.findAsync(zipcode);
+    }
+
+    /**
+     * A new, unsaved address on the zipcode's shared locality.
+     */
+    public Address newAddress(ViaCepResponseDTO response, Integer number) {
+        return Address.builder()
+                .locality(localityService.intern(response))
+                .number(number)
                 .main(false)
                 .build();
-
-        return addressRepository.save(address);
     }
 
     private static void validateDTO(String zipcode, Integer number) {
@@ -60,11 +77,36 @@ public class AddressService {
         }
     }
 
+    private static ViaCepResponseDTO findZipcode(CompletableFuture<Optional<ViaCepResponseDTO>> lookup) {
+        Optional<ViaCepResponseDTO> response;
+        try {
+            response = lookup.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        return response.orElseThrow(() -> new BusinessException("Zipcode not found"));
+    }
+
+    @Transactional(readOnly = true)
     public Page<Address> findAllAddress(Person person, Pageable pageable) {
         return addressRepository.findByPerson(person, pageable);
     }
 
+    /**
+     * Addresses of a person after the cursor, ordered by id.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Address> findAllAddressAfter(Person person, KeysetCursor cursor, int size) {
+        PersonService.checkCursor(cursor, Set.of("id"), size);
+        Long after = cursor.isFirst() ? 0L : cursor.id();
+        return addressRepository.findByPersonAndIdGreaterThanOrderByIdAsc(person, after, PageRequest.ofSize(size));
+    }
 
+    @Transactional(readOnly = true)
     public Optional<Address> findById(Long id) {
         return addressRepository.findById(id);
     }
@@ -0,0 +1,97 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.config.CpfFilterProperties;
+import br.com.itstoony.attornatus.repository.PersonRepository;
+import br.com.itstoony.attornatus.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of every registered CPF, so uniqueness pre-checks of CPFs that were never registered
+ * don't need a query. It's filled from the person table at startup and register paths add to it.
+ * Until it's filled every CPF is a possible positive. Only checks backed by the unique constraint on
+ * person.cpf may trust a negative: another instance may have registered a CPF this filter hasn't seen.
+ */
+@Service
+@Slf4j
+public class CpfFilter {
+
+    private final PersonRepository personRepository;
+
+    private final BloomFilter filter;
+
+    private final Counter absent;
+
+    private final Counter possible;
+
+    private volatile boolean ready;
+
+    public CpfFilter(PersonRepository personRepository, CpfFilterProperties properties, MeterRegistry meterRegistry) {
+        this.personRepository = personRepository;
+        this.filter = new BloomFilter(properties.getExpectedInsertions(), properties.getFalsePositiveRate());
+
+        this.absent = Counter.builder("cpf.filter.checks").tag("result", "absent")
+                .description("CPF checks answered by the filter alone")
+                .register(meterRegistry);
+        this.possible = Counter.builder("cpf.filter.checks").tag("result", "possible")
+                .description("CPF checks the filter sent to the database")
+                .register(meterRegistry);
+        Gauge.builder("cpf.filter.insertions", filter, BloomFilter::insertions)
+                .register(meterRegistry);
+    }
+
+    /**
+     * False only when the CPF is surely not registered, as far as this instance knows.
+     */
+    public boolean mightExist(String cpf) {
+        if (cpf == null || (ready && !filter.mightContain(cpf))) {
+            absent.increment();
+            return false;
+        }
+
+        possible.increment();
+        return true;
+    }
+
+    public void add(String cpf) {
+        if (cpf != null) {
+            filter.put(cpf);
+        }
+    }
+
+    /**
+     * Adds every CPF of the person table. Registrations running meanwhile add theirs too, so none is missed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void build() {
+        long start = System.nanoTime();
+        long count = 0;
+
+        try (Stream<String> cpfs = personRepository.streamCpfs()) {
+            Iterator<String> iterator = cpfs.iterator();
+            while (iterator.hasNext()) {
+                add(iterator.next());
+                count++;
+            }
+        }
+
+        ready = true;
+        log.info("CPF filter built from {} people in {} ms, {} bits and {} hashes",
+                count, (System.nanoTime() - start) / 1_000_000, filter.bitCount(), filter.hashCount());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+}
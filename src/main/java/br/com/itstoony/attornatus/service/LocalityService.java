@@ -0,0 +1,83 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.config.ZipcodeProperties;
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+import br.com.itstoony.attornatus.model.Locality;
+import br.com.itstoony.attornatus.repository.LocalityRepository;
+import br.com.itstoony.attornatus.util.SingleFlight;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Interns localities by zipcode: every address on a zipcode references the same row, and while it's cached,
+ * the same detached instance. A locality is read, or written when new, in a transaction of its own, so the
+ * instance kept never belongs to a caller's persistence context.
+ */
+@Service
+@Slf4j
+public class LocalityService {
+
+    static final String CACHE_NAME = "localities";
+
+    private final LocalityRepository localityRepository;
+
+    private final TransactionTemplate ownTransaction;
+
+    private final Cache<String, Locality> localities;
+
+    private final SingleFlight<String, Locality> inFlight = new SingleFlight<>();
+
+    public LocalityService(LocalityRepository localityRepository, TransactionTemplate transactionTemplate,
+                           ZipcodeProperties properties, MeterRegistry meterRegistry) {
+        this.localityRepository = localityRepository;
+        this.ownTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.localities = Caffeine.newBuilder()
+                .maximumSize(properties.getCache().getLocalityMaximumSize())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, localities, CACHE_NAME);
+    }
+
+    /**
+     * The locality of a ViaCEP response, created on first use of its zipcode.
+     */
+    public Locality intern(ViaCepResponseDTO response) {
+        String key = ZipcodeService.normalize(response.getCep());
+        Locality cached = localities.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        return inFlight.execute(key, () -> {
+            Locality locality = findOrCreate(response);
+            localities.put(key, locality);
+            return locality;
+        });
+    }
+
+    private Locality findOrCreate(ViaCepResponseDTO response) {
+        try {
+            return ownTransaction.execute(status -> localityRepository.findByZipcode(response.getCep())
+                    .orElseGet(() -> localityRepository.saveAndFlush(Locality.builder()
+                            .zipcode(response.getCep())
+                            .street(response.getLogradouro())
+                            .city(response.getLocalidade())
+                            .build())));
+        } catch (DataIntegrityViolationException e) {
+            // created meanwhile by another instance
+            log.debug("Locality of zipcode {} created concurrently, reading it", response.getCep());
+            return ownTransaction.execute(status -> localityRepository.findByZipcode(response.getCep()))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.dto.RegisteringPersonRecord;
+import br.com.itstoony.attornatus.dto.RegistrationResultDTO;
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+import br.com.itstoony.attornatus.exception.BusinessException;
+import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.repository.PersonRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Registers many people at once. Every row is validated on its own and reported back as created or failed;
+ * CPF uniqueness is checked for the whole batch in one query, each distinct zipcode is resolved once,
+ * and the valid rows are inserted together so Hibernate can send them as JDBC batches.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PersonBatchService {
+
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private final PersonRepository personRepository;
+
+    private final AddressService addressService;
+
+    private final ZipcodeService zipcodeService;
+
+    private final PersonNameIndex personNameIndex;
+
+    private final CpfFilter cpfFilter;
+
+    private final PersonViewCache personViewCache;
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public List<RegistrationResultDTO> register(List<RegisteringPersonRecord> records) {
+        if (records.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException("Batch must not have more than " + MAX_BATCH_SIZE + " people");
+        }
+
+        RegistrationResultDTO[] results = new RegistrationResultDTO[records.size()];
+        List<Integer> pending = new ArrayList<>();
+
+        for (int i = 0; i < records.size(); i++) {
+            List<String> errors = validate(records.get(i));
+            if (errors.isEmpty()) {
+                pending.add(i);
+            } else {
+                results[i] = RegistrationResultDTO.failed(i, cpfOf(records.get(i)), errors);
+            }
+        }
+
+        rejectTakenCpfs(records, pending, results);
+
+        Map<String, Optional<ViaCepResponseDTO>> zipcodes = resolveZipcodes(records, pending);
+
+        List<Person> people = new ArrayList<>();
+        Map<Integer, Person> created = new LinkedHashMap<>();
+
+        for (Integer i : pending) {
+            RegisteringPersonRecord dto = records.get(i);
+            Optional<ViaCepResponseDTO> zipcode = zipcodes.get(ZipcodeService.normalize(dto.zipcode()));
+
+            if (zipcode == null) {
+                results[i] = RegistrationResultDTO.failed(i, dto.cpf(), List.of("Zipcode lookup failed"));
+                continue;
+            }
+            if (zipcode.isEmpty()) {
+                results[i] = RegistrationResultDTO.failed(i, dto.cpf(), List.of("Zipcode not found"));
+                continue;
+            }
+
+            Address address = addressService.newAddress(zipcode.get(), dto.number());
+            address.setMain(true);
+
+            Person person = Person.builder()
+                    .name(dto.name())
+                    .birthDay(dto.birthDay())
+                    .cpf(dto.cpf())
+                    .addressSet(new HashSet<>(List.of(address)))
+                    .build();
+            address.setPerson(person);
+
+            people.add(person);
+            created.put(i, person);
+        }
+
+        // zipcodes are resolved before this point so no connection is held during ViaCEP calls
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // addresses cascade from their people
+                personRepository.saveAll(people);
+                personNameIndex.index(people);
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (PersonService.isCpfConflict(e)) {
+                throw new BusinessException("A CPF of the batch was registered meanwhile, nothing was saved");
+            }
+            throw e;
+        }
+        people.forEach(person -> cpfFilter.add(person.getCpf()));
+        personViewCache.invalidateAll(people.stream().map(Person::getId).toList());
+
+        created.forEach((i, person) -> results[i] = RegistrationResultDTO.created(i, person.getCpf(), person.getId()));
+
+        log.info("Batch registration: {} of {} people created", created.size(), records.size());
+        return Arrays.asList(results);
+    }
+
+    private List<String> validate(RegisteringPersonRecord dto) {
+        if (dto == null) {
+            return List.of("Person must not be null");
+        }
+
+        return validator.validate(dto).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Fails rows whose CPF is already registered or repeats an earlier row of the same batch.
+     * Every CPF is looked up: the filter only knows this instance's registrations, and a CPF it
+     * misses would fail the whole batch on the unique constraint instead of its own row.
+     */
+    private void rejectTakenCpfs(List<RegisteringPersonRecord> records, List<Integer> pending,
+                                 RegistrationResultDTO[] results) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Set<String> cpfs = new HashSet<>();
+        pending.forEach(i -> cpfs.add(records.get(i).cpf()));
+        Set<String> taken = new HashSet<>(personRepository.findExistingCpfs(cpfs));
+
+        Iterator<Integer> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            int i = iterator.next();
+            String cpf = records.get(i).cpf();
+
+            if (!taken.add(cpf)) {
+                results[i] = RegistrationResultDTO.failed(i, cpf, List.of("CPF already registered"));
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Looks up each distinct zipcode once. A zipcode whose lookup failed maps to null.
+     */
+    private Map<String, Optional<ViaCepResponseDTO>> resolveZipcodes(List<RegisteringPersonRecord> records,
+                                                                     List<Integer> pending) {
+        Map<String, Optional<ViaCepResponseDTO>> zipcodes = new HashMap<>();
+
+        for (Integer i : pending) {
+            String zipcode = ZipcodeService.normalize(records.get(i).zipcode());
+            if (zipcodes.containsKey(zipcode)) {
+                continue;
+            }
+
+            try {
+                zipcodes.put(zipcode, zipcodeService.find(zipcode));
+            } catch (RuntimeException e) {
+                log.warn("Zipcode lookup failed for {}: {}", zipcode, e.getMessage());
+                zipcodes.put(zipcode, null);
+            }
+        }
+        return zipcodes;
+    }
+
+    private static String cpfOf(RegisteringPersonRecord dto) {
+        return dto == null ? null : dto.cpf();
+    }
+
+}
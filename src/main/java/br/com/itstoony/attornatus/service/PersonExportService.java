@@ -0,0 +1,93 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.dto.PersonDTO;
+import br.com.itstoony.attornatus.mapper.PersonMapper;
+import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.repository.AddressRepository;
+import br.com.itstoony.attornatus.repository.PersonRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes every person as newline-delimited JSON, reading them through a forward-only cursor.
+ * People are handled in chunks: each chunk's addresses are loaded with one query, the chunk is written,
+ * and the persistence context is cleared, so memory use doesn't grow with the table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PersonExportService {
+
+    static final int CHUNK_SIZE = 500;
+
+    private static final byte NEW_LINE = '\n';
+
+    private final PersonRepository personRepository;
+
+    private final AddressRepository addressRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final PersonMapper personMapper;
+
+    @Transactional(readOnly = true)
+    public long export(boolean includeAddresses, OutputStream output) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(PersonDTO.class);
+        List<Person> chunk = new ArrayList<>(CHUNK_SIZE);
+        long exported = 0;
+
+        try (Stream<Person> people = personRepository.streamAll()) {
+            Iterator<Person> iterator = people.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+
+                if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                    writeChunk(chunk, includeAddresses, writer, output);
+                    exported += chunk.size();
+                    chunk.clear();
+                    entityManager.clear();
+                }
+            }
+        }
+
+        output.flush();
+        log.info("Exported {} people", exported);
+        return exported;
+    }
+
+    private void writeChunk(List<Person> chunk, boolean includeAddresses,
+                            ObjectWriter writer, OutputStream output) throws IOException {
+        Map<Long, Set<Address>> addresses = includeAddresses ? findAddresses(chunk) : Map.of();
+
+        for (Person person : chunk) {
+            PersonDTO dto = personMapper.toDTO(person,
+                    includeAddresses ? addresses.getOrDefault(person.getId(), Set.of()) : null);
+
+            output.write(writer.writeValueAsBytes(dto));
+            output.write(NEW_LINE);
+        }
+        output.flush();
+    }
+
+    private Map<Long, Set<Address>> findAddresses(List<Person> chunk) {
+        List<Long> ids = chunk.stream().map(Person::getId).toList();
+
+        return addressRepository.findByPersonIds(ids).stream()
+                .collect(Collectors.groupingBy(a -> a.getPerson().getId(), Collectors.toSet()));
+    }
+
+}
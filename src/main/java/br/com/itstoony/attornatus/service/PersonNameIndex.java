@@ -0,0 +1,120 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.model.Backfill;
+import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.model.PersonNameTrigram;
+import br.com.itstoony.attornatus.repository.BackfillRepository;
+import br.com.itstoony.attornatus.repository.PersonNameTrigramRepository;
+import br.com.itstoony.attornatus.repository.PersonRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Keeps the trigram side table of person names in step with the person table.
+ * Register and update paths call it, and people saved before the table existed are indexed at the first startup
+ * with it; a {@link Backfill} row records that this backfill is done, so later startups skip it. Instances
+ * starting together may backfill the same people, so the backfill only inserts rows that are absent.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PersonNameIndex {
+
+    static final int TRIGRAM_LENGTH = 3;
+
+    private static final int BACKFILL_CHUNK_SIZE = 500;
+
+    static final String BACKFILL = "person_name_trigram";
+
+    private final PersonNameTrigramRepository trigramRepository;
+
+    private final BackfillRepository backfillRepository;
+
+    private final PersonRepository personRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Distinct trigrams of a lowercased name, empty when it's too short to have any.
+     */
+    public static Set<String> trigrams(String name) {
+        if (name == null || name.length() < TRIGRAM_LENGTH) {
+            return Set.of();
+        }
+
+        String lowercase = name.toLowerCase(Locale.ROOT);
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + TRIGRAM_LENGTH <= lowercase.length(); i++) {
+            trigrams.add(lowercase.substring(i, i + TRIGRAM_LENGTH));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Indexes people that were just inserted.
+     */
+    public void index(Collection<Person> people) {
+        List<PersonNameTrigram> rows = new ArrayList<>();
+        for (Person person : people) {
+            trigrams(person.getName()).forEach(trigram -> rows.add(new PersonNameTrigram(trigram, person.getId())));
+        }
+        trigramRepository.saveAll(rows);
+    }
+
+    public void index(Person person) {
+        index(List.of(person));
+    }
+
+    /**
+     * Replaces the trigrams of a person whose name changed.
+     */
+    @Transactional
+    public void reindex(Person person) {
+        trigramRepository.deleteByPersonId(person.getId());
+        index(person);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (backfillRepository.existsById(BACKFILL)) {
+            return;
+        }
+
+        long indexed = 0;
+        Long after = 0L;
+
+        while (after != null) {
+            Long from = after;
+            List<Person> chunk = transactionTemplate.execute(status -> {
+                List<Person> people = personRepository.findWithoutTrigrams(from, PageRequest.of(0, BACKFILL_CHUNK_SIZE));
+                people.forEach(person -> trigrams(person.getName())
+                        .forEach(trigram -> trigramRepository.insertIfAbsent(trigram, person.getId())));
+                return people;
+            });
+
+            indexed += chunk.size();
+            after = chunk.size() < BACKFILL_CHUNK_SIZE ? null : chunk.get(chunk.size() - 1).getId();
+        }
+
+        // people whose names yield no trigrams stay without rows, the record keeps them from being scanned again
+        try {
+            backfillRepository.save(new Backfill(BACKFILL, Instant.now()));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Trigram backfill was recorded by another instance meanwhile");
+        }
+        if (indexed > 0) {
+            log.info("Indexed names of {} people missing from the trigram index", indexed);
+        }
+    }
+
+}
@@ -7,31 +7,59 @@ import br.com.itstoony.attornatus.model.Address;
 import br.com.itstoony.attornatus.model.Person;
 import br.com.itstoony.attornatus.repository.AddressRepository;
 import br.com.itstoony.attornatus.repository.PersonRepository;
+import br.com.itstoony.attornatus.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class PersonService {
 
+    public static final Set<String> CURSOR_SORTS = Set.of("id", "name");
+
+    public static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
     private final PersonRepository personRepository;
 
     private final AddressRepository addressRepository;
 
+    private final PersonNameIndex personNameIndex;
+
+    private final CpfFilter cpfFilter;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PersonViewCache personViewCache;
 
     public Person register(RegisteringPersonRecord dto, Address address) {
+        return register(dto, () -> address);
+    }
+
+    /**
+     * Registers a person whose address may still be resolving: the CPF is checked first, so a taken CPF
+     * fails without waiting for the address.
+     */
+    public Person register(RegisteringPersonRecord dto, Supplier<Address> pendingAddress) {
 
-        if (existsByCpf(dto.cpf())) {
+        if (isCpfTaken(dto.cpf())) {
             throw new BusinessException("CPF already registered");
         }
 
+        Address address = pendingAddress.get();
+
         address.setMain(true);
         Person savingPerson = Person.builder()
                 .id(null)
@@ -40,17 +68,22 @@ public class PersonService {
                 .cpf(dto.cpf())
                 .addressSet(new HashSet<>(List.of(address)))
                 .build();
-
-        addressRepository.save(address);
-
-        Person savedPerson = personRepository.save(savingPerson);
-
-        address.setPerson(savedPerson);
-
-        addressRepository.save(address);
+        address.setPerson(savingPerson);
+
+        // the address is persisted through the person, both rows go in the same flush
+        Person savedPerson = saveCheckingCpf(() -> transactionTemplate.execute(status -> {
+            Person saved = personRepository.save(savingPerson);
+            personNameIndex.index(saved);
+            return saved;
+        }), "CPF already registered");
+
+        cpfFilter.add(savedPerson.getCpf());
+        // drops a cached 404 of the new id
+        personViewCache.invalidate(savedPerson.getId());
         return savedPerson;
     }
 
+    @Transactional(readOnly = true)
     public Optional<Person> findById(Long id) {
         return personRepository.findById(id);
     }
@@ -61,11 +94,12 @@ public class PersonService {
             throw new BusinessException("Cannot update an unsaved person");
         }
 
-        if (existsByCpf(update.cpf())) {
+        if (isCpfTaken(update.cpf())) {
             throw new BusinessException("Passed CPF belongs an already saved person");
         }
 
-        if (update.name() != null && !update.name().isBlank()) {
+        boolean renamed = update.name() != null && !update.name().isBlank() && !update.name().equals(person.getName());
+        if (renamed) {
             person.setName(update.name());
         }
 
@@ -77,11 +111,42 @@ public class PersonService {
             person.setCpf(update.cpf());
         }
 
-        return personRepository.save(person);
+        Person savedPerson = saveCheckingCpf(() -> personRepository.save(person), "Passed CPF belongs an already saved person");
+        cpfFilter.add(savedPerson.getCpf());
+        if (renamed) {
+            personNameIndex.reindex(savedPerson);
+        }
+        personViewCache.invalidate(savedPerson.getId());
+        return savedPerson;
     }
 
+    @Transactional(readOnly = true)
     public Page<Person> find(String name, Pageable pageable) {
-        return personRepository.findByName(name, pageable);
+        Set<String> trigrams = PersonNameIndex.trigrams(name);
+        if (trigrams.isEmpty()) {
+            return personRepository.findByName(name, pageable);
+        }
+
+        return personRepository.findByNameTrigrams(name, trigrams, trigrams.size(), pageable);
+    }
+
+    /**
+     * Keyset counterpart of {@link #find(String, Pageable)}: seeks past the cursor instead of
+     * skipping rows, and doesn't count the total.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Person> findAfter(String name, KeysetCursor cursor, int size) {
+        checkCursor(cursor, CURSOR_SORTS, size);
+        return personRepository.findAfter(name, PersonNameIndex.trigrams(name), cursor, size);
+    }
+
+    static void checkCursor(KeysetCursor cursor, Set<String> sorts, int size) {
+        if (!sorts.contains(cursor.sort())) {
+            throw new BusinessException("Sort must be one of " + sorts);
+        }
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new BusinessException("Size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
     }
 
     public Person addAddress(Person person, Address address) {
@@ -89,36 +154,76 @@ public class PersonService {
             throw new BusinessException("Cannot add address to an unsaved Person");
         }
 
-        addressRepository.save(address);
-
-        person.getAddressSet().add(address);
-
+        // one INSERT, and the person's version is bumped
         address.setPerson(person);
+        transactionTemplate.executeWithoutResult(status -> {
+            addressRepository.save(address);
+            personRepository.incrementVersion(person.getId());
+        });
 
-        addressRepository.save(address);
-        return personRepository.save(person);
+        person.getAddressSet().add(address);
+        personViewCache.invalidate(person.getId());
+        return person;
     }
 
+    /**
+     * Switches the main address with two address UPDATEs, whatever the number of addresses: one clearing the
+     * current main row, one flagging the passed address. A third one bumps the person's version.
+     * The unique main_of column keeps concurrent switches from leaving two main addresses.
+     * Returns the person read again, since the updates bypass loaded entities.
+     */
     public Person setAddressAsMain(Person person, Address address) {
         if (!existsByCpf(person.getCpf())) {
             throw new BusinessException("Person not saved");
         }
 
-        if (!person.getAddressSet().contains(address)) {
+        if (address == null || address.getId() == null) {
             throw new BusinessException("Passed address doesn't belong to passed person");
         }
 
-        Set<Address> addressSet = person.getAddressSet();
-        addressSet.forEach(a -> a.setMain(false));
-
-        address.setMain(true);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                addressRepository.clearMain(person.getId(), address.getId());
+                personRepository.incrementVersion(person.getId());
+                if (addressRepository.markMain(person.getId(), address.getId()) == 0) {
+                    throw new BusinessException("Passed address doesn't belong to passed person");
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new BusinessException("Main address was changed concurrently, please retry");
+        }
+        personViewCache.invalidate(person.getId());
 
-        addressRepository.save(address);
-        return personRepository.save(person);
+        return personRepository.findById(person.getId())
+                .orElseThrow(() -> new BusinessException("Person not saved"));
     }
 
     public boolean existsByCpf(String cpf) {
         return personRepository.existsByCpf(cpf);
     }
 
+    /**
+     * Uniqueness pre-check: asks the database only when the CPF filter can't rule the CPF out.
+     * A CPF registered meanwhile, here or on another instance, is still caught by the unique constraint on save.
+     */
+    private boolean isCpfTaken(String cpf) {
+        return cpfFilter.mightExist(cpf) && existsByCpf(cpf);
+    }
+
+    private Person saveCheckingCpf(Supplier<Person> save, String conflictMessage) {
+        try {
+            return save.get();
+        } catch (DataIntegrityViolationException e) {
+            if (isCpfConflict(e)) {
+                throw new BusinessException(conflictMessage);
+            }
+            throw e;
+        }
+    }
+
+    static boolean isCpfConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(Person.CPF_CONSTRAINT);
+    }
+
 }
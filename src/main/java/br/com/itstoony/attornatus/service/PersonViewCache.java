@@ -0,0 +1,210 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.config.PersonCacheProperties;
+import br.com.itstoony.attornatus.dto.PersonDTO;
+import br.com.itstoony.attornatus.mapper.PersonMapper;
+import br.com.itstoony.attornatus.repository.PersonRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Bounded read-through cache of person views by id, each one mapped with its addresses.
+ * Unknown ids are cached as well, for a shorter time, so repeated 404s don't reach the database.
+ * PersonService invalidates an id as soon as a write to it commits; a read that was loading the old view
+ * meanwhile finishes first, so the invalidation always wins.
+ * Cached views are shared between requests and must not be modified.
+ * Invalidated ids are also handed to {@link ReadYourWrites}, every write to a person ends up here.
+ * <p>
+ * When enabled, views are also kept as UTF-8 JSON, bounded by their total size. Serialized views are
+ * tagged with the version they were written from and only served for that version, so one written from
+ * a view read just before a write is replaced on the next read instead of being served.
+ */
+@Service
+public class PersonViewCache {
+
+    static final String CACHE_NAME = "person.views";
+
+    static final String JSON_CACHE_NAME = "person.views.json";
+
+    /**
+     * Rough per-entry cost on top of the bytes themselves, so many tiny documents still count.
+     */
+    private static final int JSON_ENTRY_OVERHEAD = 64;
+
+    private final PersonRepository personRepository;
+
+    private final PersonMapper personMapper;
+
+    private final TransactionTemplate readOnly;
+
+    private final ObjectMapper objectMapper;
+
+    private final ReadYourWrites readYourWrites;
+
+    private final Cache<Long, Optional<View>> cache;
+
+    /**
+     * Null when serialized views are disabled.
+     */
+    private final Cache<Long, JsonView> json;
+
+    public PersonViewCache(PersonRepository personRepository, PersonMapper personMapper,
+                           TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                           PersonCacheProperties properties, ReadYourWrites readYourWrites,
+                           MeterRegistry meterRegistry) {
+        this.personRepository = personRepository;
+        this.personMapper = personMapper;
+        this.objectMapper = objectMapper;
+        this.readYourWrites = readYourWrites;
+        this.readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new ViewExpiry(properties.getTtl(), properties.getNegativeTtl()))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+
+        PersonCacheProperties.Json config = properties.getJson();
+        if (config.isEnabled()) {
+            this.json = Caffeine.newBuilder()
+                    .maximumWeight(config.getMaximumSize().toBytes())
+                    .weigher((Long id, JsonView view) -> view.bytes().length + JSON_ENTRY_OVERHEAD)
+                    .recordStats()
+                    .build();
+
+            CaffeineCacheMetrics.monitor(meterRegistry, json, JSON_CACHE_NAME);
+            Gauge.builder("person.views.json.size", json, c -> c.policy().eviction()
+                            .map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                    .baseUnit("bytes")
+                    .description("Total size of the serialized person views kept")
+                    .register(meterRegistry);
+        } else {
+            this.json = null;
+        }
+    }
+
+    public boolean isJsonEnabled() {
+        return json != null;
+    }
+
+    /**
+     * The view of a person as UTF-8 JSON, serialized only when there's none for its current version.
+     * Only available when serialized views are enabled.
+     */
+    public Optional<JsonView> findJson(Long id) {
+        if (json == null) {
+            throw new IllegalStateException("Serialized person views are disabled");
+        }
+
+        Optional<View> view = find(id);
+        if (view.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Long version = view.get().version();
+        JsonView cached = json.getIfPresent(id);
+        if (cached != null && Objects.equals(cached.version(), version)) {
+            return Optional.of(cached);
+        }
+
+        JsonView serialized = new JsonView(serialize(view.get().person()), version);
+        json.put(id, serialized);
+        return Optional.of(serialized);
+    }
+
+    /**
+     * The view of a person, loaded and mapped on a miss; empty when there's no such person.
+     */
+    public Optional<View> find(Long id) {
+        return cache.get(id, this::load);
+    }
+
+    /**
+     * Version of a person, from the cached view when there's one and otherwise read alone, without addresses.
+     */
+    public Optional<Long> findVersion(Long id) {
+        Optional<View> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached.map(View::version);
+        }
+        return personRepository.findVersionById(id);
+    }
+
+    public void invalidate(Long id) {
+        readYourWrites.written(id);
+        if (id != null) {
+            cache.invalidate(id);
+            if (json != null) {
+                json.invalidate(id);
+            }
+        }
+    }
+
+    public void invalidateAll(Collection<Long> ids) {
+        readYourWrites.written(ids);
+        cache.invalidateAll(ids);
+        if (json != null) {
+            json.invalidateAll(ids);
+        }
+    }
+
+    private byte[] serialize(PersonDTO person) {
+        try {
+            return objectMapper.writeValueAsBytes(person);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Couldn't serialize person " + person.getId(), e);
+        }
+    }
+
+    private Optional<View> load(Long id) {
+        // mapped inside the transaction so the addresses can still be loaded
+        return readOnly.execute(status -> personRepository.findById(id)
+                .map(person -> new View(personMapper.toDTO(person), person.getVersion())));
+    }
+
+    /**
+     * A mapped person and the version it was read at.
+     */
+    public record View(PersonDTO person, Long version) {
+    }
+
+    /**
+     * A person view serialized as UTF-8 JSON, and the version it was written from.
+     */
+    public record JsonView(byte[] bytes, Long version) {
+    }
+
+    private record ViewExpiry(Duration ttl, Duration negativeTtl) implements Expiry<Long, Optional<View>> {
+
+        @Override
+        public long expireAfterCreate(Long key, Optional<View> value, long currentTime) {
+            return value.isPresent() ? ttl.toNanos() : negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Long key, Optional<View> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long key, Optional<View> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+}
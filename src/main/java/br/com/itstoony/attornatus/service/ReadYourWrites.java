@@ -0,0 +1,48 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.config.DataSourceRoutingProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+
+/**
+ * Remembers the people written during the last {@code attornatus.datasource.read-your-writes}, so requests
+ * reading one of them are served by the primary instead of a replica that may not have the write yet.
+ * Keeps nothing when there are no replicas.
+ */
+@Service
+public class ReadYourWrites {
+
+    private static final long MAXIMUM_SIZE = 100_000;
+
+    /**
+     * Null when reads aren't routed to replicas.
+     */
+    private final Cache<Long, Boolean> written;
+
+    public ReadYourWrites(DataSourceRoutingProperties properties) {
+        this.written = !properties.isRouting() ? null : Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterWrite(properties.getReadYourWrites())
+                .build();
+    }
+
+    public void written(Long id) {
+        if (written != null && id != null) {
+            written.put(id, Boolean.TRUE);
+        }
+    }
+
+    public void written(Collection<Long> ids) {
+        if (written != null) {
+            ids.forEach(this::written);
+        }
+    }
+
+    public boolean isRecentlyWritten(Long id) {
+        return written != null && id != null && written.getIfPresent(id) != null;
+    }
+
+}
@@ -0,0 +1,386 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.client.ViaCepClient;
+import br.com.itstoony.attornatus.client.ZipcodeIndex;
+import br.com.itstoony.attornatus.config.ThreadsProperties;
+import br.com.itstoony.attornatus.config.ZipcodeProperties;
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+import br.com.itstoony.attornatus.exception.ZipcodeLookupTimeoutException;
+import br.com.itstoony.attornatus.exception.ZipcodeUnavailableException;
+import br.com.itstoony.attornatus.util.SingleFlight;
+import br.com.itstoony.attornatus.util.VirtualThreads;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import feign.FeignException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Resolves zipcodes (CEP) from the local {@link ZipcodeIndex} when it has them, and otherwise through ViaCEP,
+ * keeping recent ViaCEP answers in a bounded in-process cache.
+ * Unknown zipcodes are cached as well, for a shorter time, so they don't hit ViaCEP on every retry.
+ * Concurrent misses for the same zipcode share a single ViaCEP call.
+ * {@link #findAsync} runs ViaCEP calls on threads of its own, under a deadline: a bounded pool of platform threads,
+ * or with {@code attornatus.threads.virtual} a virtual thread per lookup, a limited number calling ViaCEP at once.
+ * <p>
+ * ViaCEP calls go through the {@value #CIRCUIT_BREAKER} circuit breaker. While a call fails or isn't permitted,
+ * the last good answer for the zipcode is served even if it expired from the cache, and {@link #probe()}
+ * checks ViaCEP in the background until the breaker closes again.
+ */
+@Service
+@Slf4j
+public class ZipcodeService {
+
+    static final String CACHE_NAME = "zipcodes";
+
+    public static final String CIRCUIT_BREAKER = "viacep";
+
+    private final ViaCepClient client;
+
+    private final ZipcodeIndex index;
+
+    /**
+     * Null, like indexMisses, when no index is configured, so there's nothing to count.
+     */
+    private final Counter indexHits;
+
+    private final Counter indexMisses;
+
+    private final Cache<String, Optional<ViaCepResponseDTO>> cache;
+
+    private final Cache<String, ViaCepResponseDTO> lastKnown;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final String probeZipcode;
+
+    private final Counter staleHits;
+
+    private final SingleFlight<String, Optional<ViaCepResponseDTO>> inFlight = new SingleFlight<>();
+
+    private final ExecutorService lookupExecutor;
+
+    /**
+     * Bounds the ViaCEP calls running at once on virtual threads. Null on the platform pool, which bounds them itself.
+     */
+    private final Semaphore lookupPermits;
+
+    private final Duration lookupTimeout;
+
+    private final MeterRegistry meterRegistry;
+
+    public ZipcodeService(ViaCepClient client, ZipcodeIndex index, ZipcodeProperties properties,
+                          ThreadsProperties threads, MeterRegistry meterRegistry,
+                          CircuitBreakerRegistry circuitBreakerRegistry) {
+        this.client = client;
+        this.index = index;
+        this.meterRegistry = meterRegistry;
+        this.probeZipcode = properties.getProbe().getZipcode();
+
+        ZipcodeProperties.Cache config = properties.getCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(new LookupExpiry(config.getTtl(), config.getNegativeTtl()))
+                .recordStats()
+                .build();
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(config.getStaleMaximumSize())
+                .build();
+
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER);
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("ViaCEP circuit breaker: {}", event.getStateTransition()));
+
+        ZipcodeProperties.Lookup lookup = properties.getLookup();
+        this.lookupTimeout = lookup.getTimeout();
+        if (threads.isVirtual()) {
+            this.lookupExecutor = VirtualThreads.newExecutor("zipcode-lookup-");
+            this.lookupPermits = new Semaphore(lookup.getVirtualConcurrency());
+            Gauge.builder("zipcode.lookups.running", lookupPermits,
+                            permits -> lookup.getVirtualConcurrency() - permits.availablePermits())
+                    .description("Lookups running on virtual threads")
+                    .register(meterRegistry);
+        } else {
+            // deliberately platform threads when requests are: a lookup blocked on ViaCEP holds its thread,
+            // so the pool and its queue are what keep a slow ViaCEP from tying up every request thread
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(lookup.getThreads(), lookup.getThreads(),
+                    1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(lookup.getQueueCapacity()),
+                    new CustomizableThreadFactory("zipcode-lookup-"));
+            pool.allowCoreThreadTimeOut(true);
+            this.lookupExecutor = pool;
+            this.lookupPermits = null;
+        }
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        new ExecutorServiceMetrics(lookupExecutor, "zipcode.lookup", Tags.empty()).bindTo(meterRegistry);
+        FunctionCounter.builder("zipcode.lookups.coalesced", inFlight, SingleFlight::coalesced)
+                .description("ViaCEP calls saved by joining a lookup already in flight")
+                .register(meterRegistry);
+        Gauge.builder("zipcode.lookups.in.flight", inFlight, SingleFlight::inFlight)
+                .description("Zipcodes currently being fetched from ViaCEP")
+                .register(meterRegistry);
+        if (index.isEmpty()) {
+            this.indexHits = null;
+            this.indexMisses = null;
+        } else {
+            this.indexHits = Counter.builder("zipcode.index.lookups").tag("result", "hit").register(meterRegistry);
+            this.indexMisses = Counter.builder("zipcode.index.lookups").tag("result", "miss").register(meterRegistry);
+        }
+        this.staleHits = Counter.builder("zipcode.lookups.stale")
+                .description("Lookups answered with last known data because ViaCEP was unavailable")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Finds the address data for a zipcode, going to ViaCEP only when neither the index nor the cache has it.
+     *
+     * @return the ViaCEP response, or an empty Optional when the zipcode doesn't exist
+     */
+    public Optional<ViaCepResponseDTO> find(String zipcode) {
+        String key = normalize(zipcode);
+        Optional<ViaCepResponseDTO> known = findKnown(key);
+        if (known != null) {
+            return known;
+        }
+
+        return inFlight.execute(key, () -> fetch(key));
+    }
+
+    /**
+     * Same as {@link #find}, but a ViaCEP call runs on a lookup thread so the caller can do other work meanwhile.
+     * Zipcodes already known complete right away. The future fails with {@link ZipcodeLookupTimeoutException}
+     * when the lookup passes its deadline or too many lookups are in progress.
+     */
+    public CompletableFuture<Optional<ViaCepResponseDTO>> findAsync(String zipcode) {
+        String key = normalize(zipcode);
+        Optional<ViaCepResponseDTO> known = findKnown(key);
+        if (known != null) {
+            return CompletableFuture.completedFuture(known);
+        }
+
+        CompletableFuture<Optional<ViaCepResponseDTO>> lookup;
+        try {
+            lookup = submit(() -> inFlight.execute(key, () -> fetch(key)));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new ZipcodeLookupTimeoutException("Too many zipcode lookups in progress"));
+        }
+
+        return lookup
+                .orTimeout(lookupTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionallyCompose(e -> {
+                    Throwable cause = unwrap(e);
+                    return CompletableFuture.failedFuture(cause instanceof TimeoutException
+                            ? new ZipcodeLookupTimeoutException("Zipcode lookup took longer than " + lookupTimeout)
+                            : cause);
+                });
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (lookupPermits == null) {
+            return CompletableFuture.supplyAsync(task, lookupExecutor);
+        }
+
+        // waiting for a permit only parks the virtual thread, and never for longer than the lookup's deadline
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                if (!lookupPermits.tryAcquire(lookupTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    throw new ZipcodeLookupTimeoutException("Too many zipcode lookups in progress");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ZipcodeLookupTimeoutException("Zipcode lookup interrupted");
+            }
+
+            try {
+                return task.get();
+            } finally {
+                lookupPermits.release();
+            }
+        }, lookupExecutor);
+    }
+
+    /**
+     * Whether a lookup of the zipcode would be answered without calling ViaCEP. Isn't counted as a lookup.
+     */
+    public boolean isResolvedLocally(String zipcode) {
+        String key = normalize(zipcode);
+        return key.length() != 8 || index.find(key).isPresent() || cache.asMap().containsKey(key);
+    }
+
+    /**
+     * Result for a zipcode that needs no ViaCEP call: malformed, in the index or cached. Null otherwise.
+     */
+    private Optional<ViaCepResponseDTO> findKnown(String key) {
+        if (key.length() != 8) {
+            return Optional.empty();
+        }
+
+        if (indexHits != null) {
+            Optional<ViaCepResponseDTO> local = index.find(key);
+            if (local.isPresent()) {
+                indexHits.increment();
+                return local;
+            }
+            indexMisses.increment();
+        }
+
+        return cache.getIfPresent(key);
+    }
+
+    private Optional<ViaCepResponseDTO> fetch(String zipcode) {
+        // a lookup that finished between our cache miss and joining the flight already filled the cache
+        Optional<ViaCepResponseDTO> cached = cache.asMap().get(zipcode);
+        if (cached != null) {
+            return cached;
+        }
+
+        ViaCepResponseDTO response;
+        try {
+            response = circuitBreaker.executeSupplier(() -> callViaCep(zipcode));
+        } catch (RuntimeException e) {
+            return stale(zipcode, e);
+        }
+
+        Optional<ViaCepResponseDTO> result = toResult(response);
+        cache.put(zipcode, result);
+        result.ifPresent(found -> lastKnown.put(zipcode, found));
+        return result;
+    }
+
+    /**
+     * Last known answer for a zipcode ViaCEP couldn't resolve now. Not cached, so the next lookup tries ViaCEP again.
+     */
+    private Optional<ViaCepResponseDTO> stale(String zipcode, RuntimeException failure) {
+        ViaCepResponseDTO known = lastKnown.getIfPresent(zipcode);
+        if (known == null) {
+            if (failure instanceof CallNotPermittedException) {
+                throw new ZipcodeUnavailableException("Zipcode lookup is unavailable, try again later");
+            }
+            throw failure;
+        }
+
+        log.debug("Serving last known data for zipcode {}: {}", zipcode, failure.toString());
+        staleHits.increment();
+        return Optional.of(known);
+    }
+
+    /**
+     * Checks ViaCEP while its circuit breaker isn't closed, so it can close without waiting for user traffic.
+     * Runs on the schedule set up by ZipcodeProbeConfig.
+     */
+    public void probe() {
+        if (circuitBreaker.getState() == CircuitBreaker.State.CLOSED) {
+            return;
+        }
+
+        try {
+            circuitBreaker.executeSupplier(() -> callViaCep(probeZipcode));
+            log.info("ViaCEP probe succeeded, circuit breaker is {}", circuitBreaker.getState());
+        } catch (CallNotPermittedException e) {
+            log.debug("ViaCEP probe skipped, circuit breaker is {}", circuitBreaker.getState());
+        } catch (RuntimeException e) {
+            log.info("ViaCEP probe failed: {}", e.toString());
+        }
+    }
+
+    /**
+     * Calls ViaCEP, timing the call under viacep.requests by outcome and counting failures under viacep.errors
+     * by exception type. Calls the circuit breaker refuses never get here.
+     */
+    private ViaCepResponseDTO callViaCep(String zipcode) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            ViaCepResponseDTO response = client.getZipcode(zipcode);
+            outcome = toResult(response).isPresent() ? "found" : "not_found";
+            return response;
+        } catch (RuntimeException e) {
+            outcome = outcome(e);
+            Counter.builder("viacep.errors")
+                    .tag("exception", e.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .increment();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("viacep.requests")
+                    .description("ViaCEP calls")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String outcome(RuntimeException e) {
+        if (e instanceof FeignException feign) {
+            if (feign.status() >= 500) {
+                return "server_error";
+            }
+            if (feign.status() >= 400) {
+                return "client_error";
+            }
+            // no status: connect or read timeout, or another I/O failure
+            return "io_error";
+        }
+        return "error";
+    }
+
+    private static Optional<ViaCepResponseDTO> toResult(ViaCepResponseDTO response) {
+        if (response == null || Boolean.TRUE.equals(response.getErro())) {
+            return Optional.empty();
+        }
+        return Optional.of(response);
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdownNow();
+    }
+
+    static String normalize(String zipcode) {
+        return zipcode == null ? "" : zipcode.replaceAll("\\D", "");
+    }
+
+    private record LookupExpiry(Duration ttl, Duration negativeTtl)
+            implements Expiry<String, Optional<ViaCepResponseDTO>> {
+
+        @Override
+        public long expireAfterCreate(String key, Optional<ViaCepResponseDTO> value, long currentTime) {
+            return value.isPresent() ? ttl.toNanos() : negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<ViaCepResponseDTO> value,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<ViaCepResponseDTO> value,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+}
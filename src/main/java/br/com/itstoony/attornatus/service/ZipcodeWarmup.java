@@ -0,0 +1,136 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.config.ZipcodeProperties;
+import br.com.itstoony.attornatus.exception.ZipcodeUnavailableException;
+import br.com.itstoony.attornatus.repository.AddressRepository;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads the most used stored zipcodes into the lookup cache, so a fresh instance doesn't pay ViaCEP latency for
+ * them. Zipcodes already resolved locally are skipped; the others go to ViaCEP at the pace of the
+ * {@value #RATE_LIMITER} rate limiter. A run stops early when ViaCEP becomes unavailable.
+ */
+@Service
+@Slf4j
+public class ZipcodeWarmup {
+
+    public static final String RATE_LIMITER = "zipcode-warmup";
+
+    private static final int PROGRESS_EVERY = 100;
+
+    private final AddressRepository addressRepository;
+
+    private final ZipcodeService zipcodeService;
+
+    private final RateLimiter rateLimiter;
+
+    private final ZipcodeProperties.Warmup properties;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Result lastResult;
+
+    public ZipcodeWarmup(AddressRepository addressRepository, ZipcodeService zipcodeService,
+                         ZipcodeProperties properties, RateLimiterRegistry rateLimiterRegistry) {
+        this.addressRepository = addressRepository;
+        this.zipcodeService = zipcodeService;
+        this.rateLimiter = rateLimiterRegistry.rateLimiter(RATE_LIMITER);
+        this.properties = properties.getWarmup();
+    }
+
+    /**
+     * Warms the most used zipcodes, returning null when another run is still going.
+     */
+    public Result run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Zipcode warm-up already running, skipping");
+            return null;
+        }
+
+        long start = System.nanoTime();
+        int known = 0, fetched = 0, failed = 0;
+        boolean interrupted = false;
+        List<String> zipcodes = List.of();
+
+        try {
+            zipcodes = addressRepository.findMostUsedZipcodes(PageRequest.ofSize(properties.getMaximumZipcodes()));
+            log.info("Zipcode warm-up started for {} zipcodes", zipcodes.size());
+
+            for (int i = 0; i < zipcodes.size(); i++) {
+                String zipcode = zipcodes.get(i);
+
+                if (zipcodeService.isResolvedLocally(zipcode)) {
+                    known++;
+                } else {
+                    if (!awaitPermission()) {
+                        log.warn("Zipcode warm-up stopped, interrupted while waiting for the rate limiter");
+                        interrupted = true;
+                        break;
+                    }
+                    try {
+                        zipcodeService.find(zipcode);
+                        fetched++;
+                    } catch (ZipcodeUnavailableException e) {
+                        log.warn("Zipcode warm-up stopped, ViaCEP is unavailable: {}", e.getMessage());
+                        interrupted = true;
+                        break;
+                    } catch (RuntimeException e) {
+                        failed++;
+                        log.debug("Zipcode warm-up lookup failed for {}: {}", zipcode, e.getMessage());
+                    }
+                }
+
+                if ((i + 1) % PROGRESS_EVERY == 0) {
+                    log.info("Zipcode warm-up: {} of {} zipcodes, {} fetched from ViaCEP",
+                            i + 1, zipcodes.size(), fetched);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Zipcode warm-up failed", e);
+            interrupted = true;
+        } finally {
+            running.set(false);
+        }
+
+        Result result = new Result(zipcodes.size(), known, fetched, failed, interrupted,
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+        lastResult = result;
+        log.info("Zipcode warm-up finished: {}", result);
+        return result;
+    }
+
+    /**
+     * Waits for a permit as long as it takes, returning false if the thread is interrupted meanwhile.
+     */
+    private boolean awaitPermission() {
+        while (!rateLimiter.acquirePermission()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Result of the last finished run, null before the first one ends.
+     */
+    public Result lastResult() {
+        return lastResult;
+    }
+
+    public record Result(int zipcodes, int known, int fetched, int failed, boolean interrupted, long millis) {
+    }
+
+}
@@ -0,0 +1,54 @@
+package br.com.itstoony.attornatus.util;
+
+import br.com.itstoony.attornatus.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a keyset (seek) pagination: the sort key and id of the last row a client has seen.
+ * Clients get it as an opaque token and send it back to fetch the rows that follow.
+ *
+ * @param sort the property rows are ordered by, before the id
+ * @param key  value of that property in the last row, null when ordering by id alone
+ * @param id   id of the last row, null before the first page
+ */
+public record KeysetCursor(String sort, String key, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static KeysetCursor first(String sort) {
+        return new KeysetCursor(sort, null, null);
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    public String encode() {
+        String value = sort + SEPARATOR + id + SEPARATOR + (key == null ? "" : key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a token produced by {@link #encode()}; a blank token means the first page.
+     */
+    public static KeysetCursor decode(String token, String sort) {
+        if (token == null || token.isBlank()) {
+            return first(sort);
+        }
+
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split("\\|", 3);
+
+            if (parts.length != 3 || !parts[0].equals(sort)) {
+                throw new BusinessException("Invalid cursor");
+            }
+            return new KeysetCursor(parts[0], parts[2].isEmpty() ? null : parts[2], Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+package br.com.itstoony.attornatus.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the connections of read-only transactions to the replicas, in turn, and every other connection to the
+ * primary. A replica refusing a connection is skipped for a while and the next one is tried; when none is left
+ * the primary serves the read.
+ * <p>
+ * Reads stay on the primary for a while after the same thread used a read-write transaction, so a request
+ * reading back what it just wrote sees it, until the writes are {@linkplain #forgetWrites() forgotten}, and
+ * whenever the thread is {@linkplain #pinToPrimary() pinned}.
+ * <p>
+ * Connections are handed out lazily: the physical one is only picked on the first statement, once the
+ * transaction, and whether it's read-only, is known.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy {
+
+    private static final ThreadLocal<Long> LAST_WRITE = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                                    Duration readYourWrites, Duration replicaRetry) {
+        this(new Router(primary, replicas, readYourWrites.toNanos(), replicaRetry.toNanos()));
+    }
+
+    private ReplicaRoutingDataSource(Router router) {
+        super(router);
+    }
+
+    /**
+     * Sends every read of the current thread to the primary until the returned pin is closed.
+     */
+    public static Pin pinToPrimary() {
+        boolean pinned = PINNED.get() != null;
+        PINNED.set(Boolean.TRUE);
+        return () -> {
+            if (!pinned) {
+                PINNED.remove();
+            }
+        };
+    }
+
+    /**
+     * Forgets the writes of the current thread, e.g. when a request it served is over.
+     */
+    public static void forgetWrites() {
+        LAST_WRITE.remove();
+    }
+
+    public interface Pin extends AutoCloseable {
+
+        @Override
+        void close();
+
+    }
+
+    @Slf4j
+    private static class Router extends AbstractDataSource {
+
+        private final DataSource primary;
+
+        private final List<Replica> replicas;
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        private final long readYourWritesNanos;
+
+        private final long retryNanos;
+
+        Router(DataSource primary, List<DataSource> replicas, long readYourWritesNanos, long retryNanos) {
+            this.primary = primary;
+            this.replicas = replicas.stream().map(Replica::new).toList();
+            this.readYourWritesNanos = readYourWritesNanos;
+            this.retryNanos = retryNanos;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                    LAST_WRITE.set(System.nanoTime());
+                }
+                return primary.getConnection();
+            }
+
+            if (PINNED.get() != null || wroteRecently()) {
+                return primary.getConnection();
+            }
+            return replicaConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return primary.getConnection(username, password);
+        }
+
+        private boolean wroteRecently() {
+            Long lastWrite = LAST_WRITE.get();
+            if (lastWrite == null) {
+                return false;
+            }
+            if (System.nanoTime() - lastWrite < readYourWritesNanos) {
+                return true;
+            }
+            LAST_WRITE.remove();
+            return false;
+        }
+
+        private Connection replicaConnection() throws SQLException {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (replica.isSkipped()) {
+                    continue;
+                }
+
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replica.up();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.down(retryNanos, e);
+                }
+            }
+
+            log.debug("No replica available, reading from the primary");
+            return primary.getConnection();
+        }
+
+    }
+
+    @Slf4j
+    private static class Replica {
+
+        private final DataSource dataSource;
+
+        private volatile long skippedUntil;
+
+        private volatile boolean down;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        boolean isSkipped() {
+            return down && System.nanoTime() - skippedUntil < 0;
+        }
+
+        void down(long retryNanos, SQLException e) {
+            skippedUntil = System.nanoTime() + retryNanos;
+            if (!down) {
+                log.warn("Replica {} refused a connection, skipping it for {} ms: {}",
+                        dataSource, Duration.ofNanos(retryNanos).toMillis(), e.getMessage());
+            }
+            down = true;
+        }
+
+        void up() {
+            if (down) {
+                down = false;
+                log.info("Replica {} is back", dataSource);
+            }
+        }
+
+    }
+
+}
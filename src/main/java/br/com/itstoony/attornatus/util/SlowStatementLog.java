@@ -0,0 +1,73 @@
+package br.com.itstoony.attornatus.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Ring buffer of the most recent statements that took at least a threshold, the oldest one being overwritten
+ * once it is full. Statements are kept with the SQL and the types of their bound parameters, never the values.
+ */
+public class SlowStatementLog {
+
+    private final long thresholdNanos;
+
+    private final Entry[] entries;
+
+    private long recorded;
+
+    public SlowStatementLog(Duration threshold, int capacity) {
+        if (threshold.isNegative()) {
+            throw new IllegalArgumentException("Threshold must not be negative");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.thresholdNanos = threshold.toNanos();
+        this.entries = new Entry[capacity];
+    }
+
+    /**
+     * Keeps the statement if it took at least the threshold, returning whether it was kept.
+     */
+    public boolean record(String sql, List<String> parameters, int batchSize, long nanos) {
+        if (nanos < thresholdNanos) {
+            return false;
+        }
+
+        Entry entry = new Entry(sql, List.copyOf(parameters), batchSize, nanos / 1_000_000.0, Instant.now());
+        synchronized (this) {
+            entries[(int) (recorded++ % entries.length)] = entry;
+        }
+        return true;
+    }
+
+    /**
+     * Statements kept, slowest first.
+     */
+    public synchronized List<Entry> slowest() {
+        List<Entry> slowest = new ArrayList<>(Arrays.stream(entries).filter(Objects::nonNull).toList());
+        slowest.sort(Comparator.comparingDouble(Entry::millis).reversed());
+        return slowest;
+    }
+
+    /**
+     * Slow statements seen since the last clear, including the ones already overwritten.
+     */
+    public synchronized long recorded() {
+        return recorded;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(entries, null);
+        recorded = 0;
+    }
+
+    public record Entry(String sql, List<String> parameters, int batchSize, double millis, Instant at) {
+    }
+
+}
@@ -0,0 +1,133 @@
+package br.com.itstoony.attornatus.util;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Times every statement executed through its connections, handing the slow ones to a {@link SlowStatementLog}
+ * along with the types of the parameters bound to them.
+ */
+public class TimedDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTIONS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final SlowStatementLog slowStatements;
+
+    public TimedDataSource(DataSource target, SlowStatementLog slowStatements) {
+        super(target);
+        this.slowStatements = slowStatements;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return timed(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return timed(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection timed(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                        return timed(statement, sql);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement timed(Statement statement, String sql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                new StatementHandler(statement, sql));
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+
+        private final String sql;
+
+        private final List<String> parameters = new ArrayList<>();
+
+        private int batchSize;
+
+        StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                bind(index, name.equals("setNull") ? "null" : shape(args[1]));
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            } else if (EXECUTIONS.contains(name)) {
+                return execute(method, args);
+            }
+
+            return TimedDataSource.invoke(statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            long start = System.nanoTime();
+            try {
+                return TimedDataSource.invoke(statement, method, args);
+            } finally {
+                String executed = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+                slowStatements.record(executed, parameters, batchSize, System.nanoTime() - start);
+                if (method.getName().endsWith("Batch")) {
+                    batchSize = 0;
+                }
+            }
+        }
+
+        private void bind(int index, String shape) {
+            while (parameters.size() < index) {
+                parameters.add("unset");
+            }
+            parameters.set(index - 1, shape);
+        }
+
+        private static String shape(Object value) {
+            return value == null ? "null" : value.getClass().getSimpleName();
+        }
+
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package br.com.itstoony.attornatus.actuator;
+
+import br.com.itstoony.attornatus.client.ViaCepClient;
+import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.repository.PersonRepository;
+import br.com.itstoony.attornatus.util.SlowStatementLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "attornatus.jpa-stats.enabled=true",
+        "attornatus.jpa-stats.slow-statements.threshold=0ms",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        // its startup run would add statements to the counts
+        "attornatus.zipcode.warmup.enabled=false"
+})
+public class JpaStatsEndpointTest {
+
+    @Autowired
+    JpaStatsEndpoint endpoint;
+
+    @Autowired
+    PersonRepository personRepository;
+
+    @MockBean
+    ViaCepClient viaCepClient;
+
+    @BeforeEach
+    public void setUp() {
+        endpoint.reset();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        personRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Should report query and entity statistics along with the statements run and their parameter types")
+    public void reportTest() {
+        // scenery
+        Person person = personRepository.save(Person.builder()
+                .name("Fulano")
+                .cpf("48603117012")
+                .birthDay(LocalDate.of(1998, 11, 25))
+                .build());
+
+        // execution
+        personRepository.existsByCpf("48603117012");
+        personRepository.findById(person.getId());
+        JpaStatsEndpoint.Report report = endpoint.report();
+
+        // validation
+        assertThat(report.statisticsEnabled()).isTrue();
+        assertThat(report.totals().preparedStatements()).isPositive();
+        assertThat(report.queries()).isNotEmpty();
+        assertThat(report.queries().values()).allSatisfy(query -> assertThat(query.executions()).isPositive());
+        assertThat(report.entities().get(Person.class.getName()).inserts()).isEqualTo(1);
+
+        assertThat(report.slowStatements())
+                .filteredOn(statement -> statement.sql().toLowerCase().startsWith("insert into person"))
+                .singleElement()
+                .extracting(SlowStatementLog.Entry::parameters)
+                .satisfies(parameters -> assertThat(parameters).containsExactly("Date", "String", "String", "Long", "Long"));
+    }
+
+    @Test
+    @DisplayName("Should start statistics and slow statements over on reset")
+    public void resetTest() {
+        // scenery
+        personRepository.existsByCpf("48603117012");
+
+        // execution
+        endpoint.reset();
+        JpaStatsEndpoint.Report report = endpoint.report();
+
+        // validation
+        assertThat(report.totals().preparedStatements()).isZero();
+        assertThat(report.slowStatements()).isEmpty();
+        assertThat(report.slowStatementsRecorded()).isZero();
+    }
+
+}
@@ -0,0 +1,56 @@
+package br.com.itstoony.attornatus.actuator;
+
+import br.com.itstoony.attornatus.config.ZipcodeProperties;
+import br.com.itstoony.attornatus.service.ZipcodeWarmup;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ZipcodeWarmupHealthIndicatorTest {
+
+    @MockBean
+    ZipcodeWarmup zipcodeWarmup;
+
+    @Test
+    @DisplayName("Should be out of service until the first warm-up finishes")
+    public void healthTest() {
+        // scenery
+        ZipcodeWarmupHealthIndicator indicator = new ZipcodeWarmupHealthIndicator(zipcodeWarmup, new ZipcodeProperties());
+
+        // execution
+        Status running = indicator.health().getStatus();
+        when(zipcodeWarmup.lastResult()).thenReturn(new ZipcodeWarmup.Result(10, 2, 8, 0, false, 800));
+        Status finished = indicator.health().getStatus();
+
+        // validation
+        assertThat(running).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(finished).isEqualTo(Status.UP);
+    }
+
+    @Test
+    @DisplayName("Should take traffic once the readiness timeout passes, even if the warm-up is still running")
+    public void healthTimeoutTest() {
+        // scenery
+        ZipcodeProperties properties = new ZipcodeProperties();
+        properties.getWarmup().setReadinessTimeout(Duration.ZERO);
+        ZipcodeWarmupHealthIndicator indicator = new ZipcodeWarmupHealthIndicator(zipcodeWarmup, properties);
+
+        // execution
+        Status status = indicator.health().getStatus();
+
+        // validation
+        assertThat(status).isEqualTo(Status.UP);
+    }
+
+}
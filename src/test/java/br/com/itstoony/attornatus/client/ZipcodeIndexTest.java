@@ -0,0 +1,90 @@
+package br.com.itstoony.attornatus.client;
+
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class ZipcodeIndexTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    @DisplayName("Should find every zipcode written by the builder")
+    public void findTest() throws IOException {
+        // scenery
+        ZipcodeIndex index = buildIndex(List.of(
+                "cep;logradouro;localidade",
+                "69098-384;Rua Hortelã-do-Campo;Manaus",
+                "01001000;\"Praça da Sé\";São Paulo",
+                "99999999;Rua Final;São Paulo",
+                "00000001;Rua Inicial;Manaus"
+        ));
+
+        // execution
+        Optional<ViaCepResponseDTO> first = index.find("00000001");
+        Optional<ViaCepResponseDTO> middle = index.find("69098384");
+        Optional<ViaCepResponseDTO> last = index.find("99999999");
+        Optional<ViaCepResponseDTO> quoted = index.find("01001000");
+
+        // validation
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(first).isPresent();
+        assertThat(first.get().getLogradouro()).isEqualTo("Rua Inicial");
+        assertThat(middle).isPresent();
+        assertThat(middle.get().getCep()).isEqualTo("69098-384");
+        assertThat(middle.get().getLogradouro()).isEqualTo("Rua Hortelã-do-Campo");
+        assertThat(middle.get().getLocalidade()).isSameAs(first.get().getLocalidade());
+        assertThat(last).isPresent();
+        assertThat(last.get().getLocalidade()).isEqualTo("São Paulo");
+        assertThat(quoted.get().getLogradouro()).isEqualTo("Praça da Sé");
+    }
+
+    @Test
+    @DisplayName("Should return an empty Optional for zipcodes missing from the index")
+    public void findMissingTest() throws IOException {
+        // scenery
+        ZipcodeIndex index = buildIndex(List.of("69098384;Rua Hortelã-do-Campo;Manaus"));
+
+        // execution & validation
+        assertThat(index.find("69098385")).isEmpty();
+        assertThat(index.find("00000000")).isEmpty();
+        assertThat(index.find("6909838")).isEmpty();
+        assertThat(ZipcodeIndex.empty().find("69098384")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should refuse to open a file that isn't a zipcode index")
+    public void openInvalidFileTest() throws IOException {
+        // scenery
+        Path file = Files.writeString(folder.resolve("ceps.csv"), "69098384;Rua Hortelã-do-Campo;Manaus");
+
+        // execution
+        Throwable exception = catchThrowable(() -> ZipcodeIndex.open(file));
+
+        // validation
+        assertThat(exception).isInstanceOf(IOException.class);
+    }
+
+    private ZipcodeIndex buildIndex(List<String> lines) throws IOException {
+        Path csv = Files.write(folder.resolve("ceps.csv"), lines);
+        Path output = folder.resolve("ceps.idx");
+
+        ZipcodeIndexBuilder builder = new ZipcodeIndexBuilder(';');
+        builder.read(csv);
+        builder.write(output);
+
+        return ZipcodeIndex.open(output);
+    }
+
+}
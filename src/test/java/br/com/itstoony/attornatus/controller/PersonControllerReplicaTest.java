@@ -0,0 +1,157 @@
+package br.com.itstoony.attornatus.controller;
+
+import br.com.itstoony.attornatus.client.ViaCepClient;
+import br.com.itstoony.attornatus.dto.RegisteringPersonRecord;
+import br.com.itstoony.attornatus.dto.UpdatingPersonRecord;
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs on two H2 databases, the primary and a replica with the same schema that is never written to by the
+ * application. A row only found in one of them shows where a read went.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "attornatus.datasource.replicas[0].url=" + PersonControllerReplicaTest.REPLICA_URL,
+        "attornatus.datasource.replicas[0].username=sa",
+        "attornatus.datasource.read-your-writes=1m",
+        "attornatus.zipcode.warmup.enabled=false"
+})
+public class PersonControllerReplicaTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:attornatus-replica;DB_CLOSE_DELAY=-1";
+
+    static String PERSON_API = "/person";
+
+    static long REPLICA_ONLY_ID = 1000L;
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    ViaCepClient viaCepClient;
+
+    JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @BeforeEach
+    public void setUp() {
+        replica.update("DELETE FROM person WHERE id = ?", REPLICA_ONLY_ID);
+        replica.update("INSERT INTO person (id, name, cpf, birth_day, version) VALUES (?, ?, ?, ?, ?)",
+                REPLICA_ONLY_ID, "Réplica", "48603117012", LocalDate.of(1998, 11, 25), 0L);
+    }
+
+    @Test
+    @DisplayName("Should read a person and their addresses from the replica")
+    public void findFromReplicaTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get(PERSON_API.concat("/" + REPLICA_ONLY_ID))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("name").value("Réplica"));
+
+        mvc.perform(MockMvcRequestBuilders.get(PERSON_API.concat("/" + REPLICA_ONLY_ID + "/address"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("Should read a person just registered from the primary, and everyone else still from the replica")
+    public void readYourWritesTest() throws Exception {
+        // scenery
+        when(viaCepClient.getZipcode(anyString())).thenReturn(ViaCepResponseDTO.builder()
+                .cep("69098-384")
+                .localidade("Manaus")
+                .logradouro("Rua Hortelã-do-Campo")
+                .build());
+
+        String json = new ObjectMapper().findAndRegisterModules().writeValueAsString(new RegisteringPersonRecord(
+                "Sicrano", "252.916.820-27", LocalDate.of(1998, 11, 25), "69098384", 10));
+
+        String location = mvc.perform(MockMvcRequestBuilders.post(PERSON_API)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+        String id = location.substring(location.lastIndexOf('/') + 1);
+
+        // execution and validation: the replica never got the new person
+        mvc.perform(MockMvcRequestBuilders.get(PERSON_API.concat("/" + id))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("name").value("Sicrano"));
+
+        mvc.perform(MockMvcRequestBuilders.get(PERSON_API.concat("/" + id + "/address"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)));
+
+        mvc.perform(MockMvcRequestBuilders.get(PERSON_API.concat("/" + REPLICA_ONLY_ID))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("name").value("Réplica"));
+    }
+
+    @Test
+    @DisplayName("Should load a person to update from the primary, never from the replica")
+    public void updateFromPrimaryTest() throws Exception {
+        // scenery
+        String json = new ObjectMapper().findAndRegisterModules().writeValueAsString(
+                new UpdatingPersonRecord("Réplica Atualizada", null, null));
+
+        // execution and validation: only the replica has the person
+        mvc.perform(MockMvcRequestBuilders.put(PERSON_API.concat("/" + REPLICA_ONLY_ID))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Gives the replica the schema Hibernate created on the primary, before anything reads from it.
+     */
+    @TestConfiguration
+    static class ReplicaSchema {
+
+        @Bean
+        public ApplicationListener<ContextRefreshedEvent> replicaSchema(DataSource dataSource) {
+            return event -> {
+                JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+                replica.execute("DROP ALL OBJECTS");
+                new JdbcTemplate(dataSource).queryForList("SCRIPT NODATA", String.class).forEach(replica::execute);
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,348 @@
+package br.com.itstoony.attornatus.controller;
+
+import br.com.itstoony.attornatus.client.ViaCepClient;
+import br.com.itstoony.attornatus.dto.RegisteringPersonRecord;
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Locality;
+import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.repository.AddressRepository;
+import br.com.itstoony.attornatus.repository.LocalityRepository;
+import br.com.itstoony.attornatus.repository.PersonNameTrigramRepository;
+import br.com.itstoony.attornatus.repository.PersonRepository;
+import br.com.itstoony.attornatus.service.LocalityService;
+import br.com.itstoony.attornatus.service.PersonNameIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL statements each endpoint sends, so a listing that goes back to loading
+ * addresses person by person, or a registration that goes back to saving rows one by one, fails here.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        // its startup run would add statements to the counts
+        "attornatus.zipcode.warmup.enabled=false"
+})
+public class PersonControllerStatementCountTest {
+
+    static String PERSON_API = "/person";
+
+    static int PEOPLE = 30;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    PersonRepository personRepository;
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    LocalityRepository localityRepository;
+
+    @Autowired
+    PersonNameTrigramRepository trigramRepository;
+
+    @Autowired
+    PersonNameIndex personNameIndex;
+
+    @Autowired
+    LocalityService localityService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    ViaCepClient viaCepClient;
+
+    List<Person> people;
+
+    @BeforeEach
+    public void setUp() {
+        people = new ArrayList<>();
+        List<Address> addresses = new ArrayList<>();
+
+        // kept between tests, it may be interned already
+        Locality locality = localityRepository.findByZipcode("69098-384")
+                .orElseGet(() -> localityRepository.save(Locality.builder()
+                        .zipcode("69098-384")
+                        .street("Rua Hortelã-do-Campo")
+                        .city("Manaus")
+                        .build()));
+
+        for (int i = 0; i < PEOPLE; i++) {
+            Person person = Person.builder()
+                    .name("Fulano " + i)
+                    .cpf("%011d".formatted(i))
+                    .birthDay(LocalDate.of(1998, 11, 25))
+                    .build();
+            people.add(person);
+
+            for (int n = 0; n < 2; n++) {
+                addresses.add(Address.builder()
+                        .locality(locality)
+                        .number(n)
+                        .main(n == 0)
+                        .person(person)
+                        .build());
+            }
+        }
+
+        personRepository.saveAll(people);
+        addressRepository.saveAll(addresses);
+        personNameIndex.index(people);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        trigramRepository.deleteAllInBatch();
+        addressRepository.deleteAllInBatch();
+        personRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Should list a page of people with their addresses in three statements")
+    public void findStatementCountTest() throws Exception {
+        // execution
+        long statements = countStatements(() -> mvc
+                .perform(MockMvcRequestBuilders.get(PERSON_API.concat("?name=fulano&page=0&size=20"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(20)))
+                .andExpect(jsonPath("content.[19].addressSet", hasSize(2))));
+
+        // validation: people, count, addresses
+        assertThat(statements).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should list a cursor page of people with their addresses in two statements")
+    public void findByCursorStatementCountTest() throws Exception {
+        // execution
+        long statements = countStatements(() -> mvc
+                .perform(MockMvcRequestBuilders.get(PERSON_API.concat("?cursor=&size=20"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(20)))
+                .andExpect(jsonPath("content.[19].addressSet", hasSize(2))));
+
+        // validation: people, addresses
+        assertThat(statements).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should get a person with their addresses in two statements")
+    public void findByIdStatementCountTest() throws Exception {
+        // execution
+        long statements = countStatements(() -> mvc
+                .perform(MockMvcRequestBuilders.get(PERSON_API.concat("/" + people.get(0).getId()))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("addressSet", hasSize(2))));
+
+        // validation: person, addresses
+        assertThat(statements).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should answer a conditional get of an unchanged person reading only their version")
+    public void findByIdNotModifiedStatementCountTest() throws Exception {
+        // scenery
+        Person person = personRepository.findById(people.get(0).getId()).orElseThrow();
+
+        // execution
+        long statements = countStatements(() -> mvc
+                .perform(MockMvcRequestBuilders.get(PERSON_API.concat("/" + person.getId()))
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + person.getVersion() + "\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified()));
+
+        // validation: version
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should list the addresses of a person in two statements")
+    public void listAllAddressStatementCountTest() throws Exception {
+        // execution
+        long statements = countStatements(() -> mvc
+                .perform(MockMvcRequestBuilders.get(PERSON_API.concat("/" + people.get(0).getId() + "/address"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(2))));
+
+        // validation: person, addresses; the count is skipped since the page isn't full
+        assertThat(statements).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should register a person, their address and name trigrams with three INSERTs in one transaction")
+    public void registerStatementCountTest() throws Exception {
+        // scenery
+        ViaCepResponseDTO response = ViaCepResponseDTO.builder()
+                .cep("69098-384")
+                .localidade("Manaus")
+                .logradouro("Rua Hortelã-do-Campo")
+                .build();
+        when(viaCepClient.getZipcode(anyString())).thenReturn(response);
+        // a zipcode's first use reads its locality in a transaction of its own
+        localityService.intern(response);
+        // so neither insert waits on a sequence call
+        allocateIds(Person.class);
+        allocateIds(Address.class);
+
+        String json = new ObjectMapper().findAndRegisterModules().writeValueAsString(new RegisteringPersonRecord(
+                "Sicrano", "252.916.820-27", LocalDate.of(1998, 11, 25), "69098384", 10));
+
+        Statistics statistics = statistics();
+
+        // execution
+        mvc.perform(MockMvcRequestBuilders.post(PERSON_API)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("addressSet", hasSize(1)));
+
+        // validation: person, address, and third the name trigrams in one batched insert, an accepted extra
+        // of the name index
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityStatistics(Person.class.getName()).getInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityStatistics(Address.class.getName()).getInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityStatistics(Address.class.getName()).getUpdateCount()).isZero();
+        assertThat(statistics.getSuccessfulTransactionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should switch the main address with two updates whatever the number of addresses")
+    public void setAddressAsMainStatementCountTest() throws Exception {
+        // scenery
+        Person person = people.get(0);
+        Address next = addressRepository.findByPersonIds(List.of(person.getId())).stream()
+                .filter(address -> !address.getMain())
+                .findFirst()
+                .orElseThrow();
+
+        Statistics statistics = statistics();
+
+        // execution
+        mvc.perform(MockMvcRequestBuilders.patch(PERSON_API.concat("/" + person.getId() + "/address/" + next.getId()))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("addressSet[?(@.main == true)].id").value(next.getId().intValue()));
+
+        // validation: person, address, cpf check, clear, version, mark, person and addresses read again
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(8);
+        assertThat(statistics.getEntityStatistics(Address.class.getName()).getUpdateCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should import addresses for many people with a fixed number of statements in one transaction")
+    public void importAddressesStatementCountTest() throws Exception {
+        // scenery
+        when(viaCepClient.getZipcode(anyString())).thenReturn(ViaCepResponseDTO.builder()
+                .cep("69098-384")
+                .localidade("Manaus")
+                .logradouro("Rua Hortelã-do-Campo")
+                .build());
+
+        StringBuilder csv = new StringBuilder("person_id,zipcode,number\n");
+        people.forEach(person -> csv.append(person.getId()).append(",69098384,99\n"));
+        MockMultipartFile file = new MockMultipartFile("file", "addresses.csv", "text/csv",
+                csv.toString().getBytes(StandardCharsets.UTF_8));
+        // leaves more ids than the import needs
+        allocateIds(Address.class);
+
+        Statistics statistics = statistics();
+
+        // execution
+        mvc.perform(MockMvcRequestBuilders.multipart(PERSON_API.concat("/address/import"))
+                        .file(file)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("imported").value(PEOPLE))
+                .andExpect(jsonPath("errors", hasSize(0)));
+
+        // validation: people check, one batched insert, versions
+        assertThat(statistics.getEntityStatistics(Address.class.getName()).getInsertCount()).isEqualTo(PEOPLE);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getSuccessfulTransactionCount()).isEqualTo(1);
+    }
+
+    private long countStatements(Request request) throws Exception {
+        Statistics statistics = statistics();
+        request.perform();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Draws ids of the entity until its generator calls the sequence, so the next few inserts take theirs
+     * from the block it just allocated.
+     */
+    private void allocateIds(Class<?> entity) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        IdentifierGenerator generator = sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(entity)
+                .getIdentifierGenerator();
+        Statistics statistics = sessionFactory.getStatistics();
+
+        try (SessionImplementor session = (SessionImplementor) sessionFactory.openSession()) {
+            long prepared = statistics.getPrepareStatementCount();
+            for (int drawn = 0; statistics.getPrepareStatementCount() == prepared; drawn++) {
+                assertThat(drawn).as("ids drawn from the %s pool", entity.getSimpleName()).isLessThanOrEqualTo(50);
+                generator.generate(session, null);
+            }
+        }
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    @FunctionalInterface
+    interface Request {
+        void perform() throws Exception;
+    }
+
+}
@@ -1,15 +1,28 @@
 package br.com.itstoony.attornatus.controller;
 
+import br.com.itstoony.attornatus.dto.AddressImportResultDTO;
 import br.com.itstoony.attornatus.dto.AddressRecord;
 import br.com.itstoony.attornatus.dto.RegisteringPersonRecord;
+import br.com.itstoony.attornatus.dto.RegistrationResultDTO;
 import br.com.itstoony.attornatus.dto.UpdatingPersonRecord;
 import br.com.itstoony.attornatus.exception.BusinessException;
+import br.com.itstoony.attornatus.exception.ZipcodeLookupTimeoutException;
+import br.com.itstoony.attornatus.mapper.AddressMapper;
+import br.com.itstoony.attornatus.mapper.PersonMapper;
 import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Locality;
 import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.service.AddressImportService;
 import br.com.itstoony.attornatus.service.AddressService;
+import br.com.itstoony.attornatus.service.PersonBatchService;
+import br.com.itstoony.attornatus.service.PersonExportService;
 import br.com.itstoony.attornatus.service.PersonService;
+import br.com.itstoony.attornatus.service.PersonViewCache;
+import br.com.itstoony.attornatus.util.KeysetCursor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,28 +32,41 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @AutoConfigureMockMvc
 @WebMvcTest
+@Import(SimpleMeterRegistry.class)
 public class PersonControllerTest {
 
     static String PERSON_API = "/person";
@@ -48,12 +74,27 @@ public class PersonControllerTest {
     @Autowired
     MockMvc mvc;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @MockBean
     PersonService personService;
 
     @MockBean
     AddressService addressService;
 
+    @MockBean
+    PersonBatchService personBatchService;
+
+    @MockBean
+    PersonExportService personExportService;
+
+    @MockBean
+    AddressImportService addressImportService;
+
+    @MockBean
+    PersonViewCache personViewCache;
+
 
     @Test
     @DisplayName("Should register a person")
@@ -71,8 +112,7 @@ public class PersonControllerTest {
                 .registerModule(new JavaTimeModule())
                 .writeValueAsString(dto);
 
-        BDDMockito.given(addressService.findFromDTO(dto)).willReturn(address);
-        BDDMockito.given(personService.register(Mockito.any(RegisteringPersonRecord.class), Mockito.any(Address.class))).willReturn(savedPerson);
+        BDDMockito.given(personService.register(Mockito.any(RegisteringPersonRecord.class), Mockito.<Supplier<Address>>any())).willReturn(savedPerson);
 
         // execution
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -96,6 +136,33 @@ public class PersonControllerTest {
                 .andExpect(jsonPath("addressSet[0].city").value(address.getCity()));
     }
 
+    @Test
+    @DisplayName("Should return 504 Gateway Timeout when the zipcode isn't resolved in time")
+    public void registerZipcodeTimeoutTest() throws Exception {
+        // scenery
+        RegisteringPersonRecord dto = createRegisteringPersonDTO();
+
+        String json = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .writeValueAsString(dto);
+
+        BDDMockito.given(personService.register(Mockito.any(RegisteringPersonRecord.class), Mockito.<Supplier<Address>>any()))
+                .willThrow(new ZipcodeLookupTimeoutException("Zipcode lookup took longer than PT2S"));
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(PERSON_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        // validation
+        mvc
+                .perform(request)
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("errors[0]").value("Zipcode lookup took longer than PT2S"));
+    }
+
     @Test
     @DisplayName("Should return 400 Bad Request when trying to register a person without sufficient data")
     public void registerInvalidPersonTest() throws Exception {
@@ -120,6 +187,69 @@ public class PersonControllerTest {
                 .andExpect(jsonPath("errors", hasSize(6)));
     }
 
+    @Test
+    @DisplayName("Should register a batch of people reporting the result of each one")
+    public void registerBatchTest() throws Exception {
+        // scenery
+        RegisteringPersonRecord valid = createRegisteringPersonDTO();
+        RegisteringPersonRecord invalid = new RegisteringPersonRecord("", "", null, "", 10);
+
+        String json = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .writeValueAsString(List.of(valid, invalid));
+
+        BDDMockito.given(personBatchService.register(Mockito.anyList())).willReturn(List.of(
+                RegistrationResultDTO.created(0, valid.cpf(), 1L),
+                RegistrationResultDTO.failed(1, invalid.cpf(), List.of("Name must not be empty"))
+        ));
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(PERSON_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        // validation
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("[0].status").value("CREATED"))
+                .andExpect(jsonPath("[0].id").value(1L))
+                .andExpect(jsonPath("[0].cpf").value(valid.cpf()))
+                .andExpect(jsonPath("[1].status").value("FAILED"))
+                .andExpect(jsonPath("[1].errors", hasSize(1)));
+    }
+
+    @Test
+    @DisplayName("Should import addresses from an uploaded CSV reporting the rows that failed")
+    public void importAddressesTest() throws Exception {
+        // scenery
+        MockMultipartFile file = new MockMultipartFile("file", "addresses.csv", "text/csv",
+                "1,69098384,10\nx,69098384,20\n".getBytes(StandardCharsets.UTF_8));
+
+        BDDMockito.given(addressImportService.importCsv(Mockito.any(InputStream.class))).willReturn(
+                new AddressImportResultDTO(2, 1, 1,
+                        List.of(new AddressImportResultDTO.RowError(2, List.of("Person id must be a number")))));
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .multipart(PERSON_API.concat("/address/import"))
+                .file(file)
+                .accept(MediaType.APPLICATION_JSON);
+
+        // validation
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("rows").value(2))
+                .andExpect(jsonPath("imported").value(1))
+                .andExpect(jsonPath("failed").value(1))
+                .andExpect(jsonPath("errors[0].line").value(2))
+                .andExpect(jsonPath("errors[0].errors[0]").value("Person id must be a number"));
+    }
+
     @Test
     @DisplayName("Should find a person by it's ID")
     public void findByIDTest() throws Exception {
@@ -130,7 +260,8 @@ public class PersonControllerTest {
         Long id = 1L;
         person.setId(id);
 
-        BDDMockito.given( personService.findById(Mockito.anyLong()) ).willReturn(Optional.of(person));
+        BDDMockito.given(personViewCache.find(Mockito.anyLong()))
+                .willReturn(Optional.of(new PersonViewCache.View(new PersonMapper(new AddressMapper()).toDTO(person), 3L)));
 
         // execution
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -141,6 +272,7 @@ public class PersonControllerTest {
         mvc
                 .perform(request)
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
                 .andExpect(jsonPath("id").value(id))
                 .andExpect(jsonPath("name").value(person.getName()))
                 .andExpect(jsonPath("birthDay").value(person.getBirthDay().toString()))
@@ -158,7 +290,7 @@ public class PersonControllerTest {
         // scenery
         Long id = 1L;
 
-        BDDMockito.given(personService.findById(id)).willReturn(Optional.empty());
+        BDDMockito.given(personViewCache.find(id)).willReturn(Optional.empty());
 
         // execution
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -172,6 +304,133 @@ public class PersonControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Should write the serialized view of a person as is when serialized views are enabled")
+    public void findByIdJsonTest() throws Exception {
+        // scenery
+        Long id = 1L;
+        byte[] json = "{\"id\":1,\"name\":\"Fulano\"}".getBytes(StandardCharsets.UTF_8);
+
+        BDDMockito.given(personViewCache.isJsonEnabled()).willReturn(true);
+        BDDMockito.given(personViewCache.findJson(id)).willReturn(Optional.of(new PersonViewCache.JsonView(json, 3L)));
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(PERSON_API.concat("/" + id))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // validation
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().bytes(json));
+
+        Mockito.verify(personViewCache, Mockito.never()).find(id);
+    }
+
+    @Test
+    @DisplayName("Should answer 304 when the person's version still matches If-None-Match, without loading them")
+    public void findByIdNotModifiedTest() throws Exception {
+        // scenery
+        Long id = 1L;
+
+        BDDMockito.given(personViewCache.findVersion(id)).willReturn(Optional.of(3L));
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(PERSON_API.concat("/" + id))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        // validation
+        mvc
+                .perform(request)
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+
+        Mockito.verify(personViewCache, Mockito.never()).find(id);
+    }
+
+    @Test
+    @DisplayName("Should return 412 when updating a person whose version doesn't match If-Match")
+    public void updatePreconditionFailedTest() throws Exception {
+        // scenery
+        Long id = 1L;
+        Person person = createPerson();
+        person.setId(id);
+        person.setVersion(4L);
+        UpdatingPersonRecord update = new UpdatingPersonRecord("Sicrano", LocalDate.of(2000, 2, 7), "252.916.820-27");
+
+        String json = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .writeValueAsString(update);
+
+        BDDMockito.given(personService.findById(id)).willReturn(Optional.of(person));
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(PERSON_API.concat("/" + id))
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        // validation
+        mvc
+                .perform(request)
+                .andExpect(status().isPreconditionFailed());
+
+        Mockito.verify(personService, Mockito.never()).update(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should return 412 when a person changes between the If-Match check and the update")
+    public void updateRacePreconditionFailedTest() throws Exception {
+        // scenery
+        Long id = 1L;
+        Person person = createPerson();
+        person.setId(id);
+        person.setVersion(3L);
+
+        BDDMockito.given(personService.findById(id)).willReturn(Optional.of(person));
+        BDDMockito.given(personService.update(Mockito.any(Person.class), Mockito.any(UpdatingPersonRecord.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Person.class, id));
+
+        // execution
+        MockHttpServletRequestBuilder request = updateRequest(id)
+                .header(HttpHeaders.IF_MATCH, "\"3\"");
+
+        // validation
+        mvc
+                .perform(request)
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("Should return 409 when an update without If-Match loses a race with another write")
+    public void updateRaceConflictTest() throws Exception {
+        // scenery
+        Long id = 1L;
+        Person person = createPerson();
+        person.setId(id);
+        person.setVersion(3L);
+
+        BDDMockito.given(personService.findById(id)).willReturn(Optional.of(person));
+        BDDMockito.given(personService.update(Mockito.any(Person.class), Mockito.any(UpdatingPersonRecord.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Person.class, id));
+
+        // execution
+        MockHttpServletRequestBuilder request = updateRequest(id);
+
+        // validation
+        mvc
+                .perform(request)
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @DisplayName("Should update a person")
     public void updateTest() throws Exception {
@@ -179,10 +438,11 @@ public class PersonControllerTest {
         Long id = 1L;
         Person person = createPerson();
         person.setId(id);
+        person.setVersion(0L);
         UpdatingPersonRecord update = new UpdatingPersonRecord("Sicrano", LocalDate.of(2000, 2, 7), "252.916.820-27");
         Address address = createAddress();
 
-        Person updatedPerson = new Person(id, update.name(), "222.222.222-22", update.birthDay(), new HashSet<>());
+        Person updatedPerson = new Person(id, update.name(), "222.222.222-22", update.birthDay(), 1L, new HashSet<>());
         updatedPerson.getAddressSet().add(address);
 
         String json = new ObjectMapper()
@@ -196,6 +456,7 @@ public class PersonControllerTest {
         // execution
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .put(PERSON_API.concat("/" + id))
+                .header(HttpHeaders.IF_MATCH, "\"0\", \"1\"")
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON)
                 .content(json);
@@ -204,6 +465,7 @@ public class PersonControllerTest {
         mvc
                 .perform(request)
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
                 .andExpect(jsonPath("id").value(id))
                 .andExpect(jsonPath("name").value(update.name()))
                 .andExpect(jsonPath("birthDay").value(update.birthDay().toString()))
@@ -250,7 +512,7 @@ public class PersonControllerTest {
         UpdatingPersonRecord update = new UpdatingPersonRecord("Sicrano", LocalDate.of(2000, 2, 7), "252.916.820-27");
         Address address = createAddress();
 
-        Person updatedPerson = new Person(id, update.name(), "222.222.222-22", update.birthDay(), new HashSet<>());
+        Person updatedPerson = new Person(id, update.name(), "222.222.222-22", update.birthDay(), 1L, new HashSet<>());
         updatedPerson.getAddressSet().add(address);
 
         String json = new ObjectMapper()
@@ -303,6 +565,103 @@ public class PersonControllerTest {
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
 
+    @Test
+    @DisplayName("Should time the mapping of a page of people once per response")
+    public void findTimedMappingTest() throws Exception {
+        // scenery
+        Person person = createPerson();
+
+        BDDMockito.given( personService.find(Mockito.any(String.class), Mockito.any(Pageable.class)) )
+                .willReturn(new PageImpl<>(List.of(person, person, person), Pageable.ofSize(100), 3) );
+
+        long mapped = meterRegistry.timer("person.mapping").count();
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(PERSON_API.concat("?name=Fulano&page=0&size=10"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // validation
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(3)));
+
+        assertThat(meterRegistry.timer("person.mapping").count()).isEqualTo(mapped + 1);
+    }
+
+    @Test
+    @DisplayName("Should find people by cursor, returning the cursor of the next page")
+    public void findByCursorTest() throws Exception {
+        // scenery
+        Person person = createPerson();
+        person.setId(7L);
+
+        BDDMockito.given(personService.findAfter(Mockito.eq(person.getName()), Mockito.any(KeysetCursor.class), Mockito.eq(1)))
+                .willReturn(new SliceImpl<>(List.of(person), Pageable.ofSize(1), true));
+
+        String queryString = String.format("?name=%s&cursor=&size=1&sort=name", person.getName());
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(PERSON_API.concat(queryString))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // validation
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content.[0].name").value(person.getName()))
+                .andExpect(jsonPath("size").value(1))
+                .andExpect(jsonPath("next").value(new KeysetCursor("name", person.getName(), 7L).encode()));
+
+        Mockito.verify(personService).findAfter(person.getName(), KeysetCursor.first("name"), 1);
+    }
+
+    @Test
+    @DisplayName("Should return 400 bad request when the cursor is malformed")
+    public void findByInvalidCursorTest() throws Exception {
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(PERSON_API.concat("?cursor=not-a-cursor"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // validation
+        mvc
+                .perform(request)
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should stream all people as newline-delimited JSON")
+    public void exportTest() throws Exception {
+        // scenery
+        BDDMockito.given(personExportService.export(Mockito.eq(true), Mockito.any(OutputStream.class)))
+                .willAnswer(invocation -> {
+                    OutputStream output = invocation.getArgument(1);
+                    output.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+                    return 2L;
+                });
+
+        // execution
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(PERSON_API.concat("/export?addresses=true"))
+                .accept(MediaType.APPLICATION_NDJSON);
+
+        MvcResult result = mvc
+                .perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // validation
+        mvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
     @Test
     @DisplayName("Should add an address to a persons set")
     public void addAddressTest() throws Exception {
@@ -463,10 +822,12 @@ public class PersonControllerTest {
     private static Address createAddress() {
         return Address.builder()
                 .id(1L)
-                .street("Rua Exemplo")
-                .zipcode("12345678")
+                .locality(Locality.builder()
+                        .zipcode("12345678")
+                        .street("Rua Exemplo")
+                        .city("São Paulo")
+                        .build())
                 .number(123)
-                .city("São Paulo")
                 .main(false)
                 .build();
     }
@@ -483,4 +844,18 @@ public class PersonControllerTest {
     private static RegisteringPersonRecord createRegisteringPersonDTO() {
         return new RegisteringPersonRecord("Fulano", "486.031.170-12", LocalDate.of(1998, 11, 25), "22222222", 10 );
     }
+
+    private static MockHttpServletRequestBuilder updateRequest(Long id) throws Exception {
+        UpdatingPersonRecord update = new UpdatingPersonRecord("Sicrano", LocalDate.of(2000, 2, 7), "252.916.820-27");
+        String json = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .writeValueAsString(update);
+
+        return MockMvcRequestBuilders
+                .put(PERSON_API.concat("/" + id))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+    }
+
 }
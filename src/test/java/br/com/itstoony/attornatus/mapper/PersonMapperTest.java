@@ -0,0 +1,88 @@
+package br.com.itstoony.attornatus.mapper;
+
+import br.com.itstoony.attornatus.dto.AddressDTO;
+import br.com.itstoony.attornatus.dto.PersonDTO;
+import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Locality;
+import br.com.itstoony.attornatus.model.Person;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersonMapperTest {
+
+    PersonMapper personMapper = new PersonMapper(new AddressMapper());
+
+    @Test
+    @DisplayName("Should map a person and its addresses to DTOs")
+    public void toDTOTest() {
+        // scenery
+        Address address = createAddress();
+        Person person = createPerson();
+        person.getAddressSet().add(address);
+        address.setPerson(person);
+
+        // execution
+        PersonDTO dto = personMapper.toDTO(person);
+
+        // validation
+        assertThat(dto.getId()).isEqualTo(person.getId());
+        assertThat(dto.getName()).isEqualTo(person.getName());
+        assertThat(dto.getCpf()).isEqualTo(person.getCpf());
+        assertThat(dto.getBirthDay()).isEqualTo(person.getBirthDay());
+        assertThat(dto.getAddressSet()).hasSize(1);
+
+        AddressDTO addressDTO = dto.getAddressSet().iterator().next();
+        assertThat(addressDTO.getId()).isEqualTo(address.getId());
+        assertThat(addressDTO.getStreet()).isEqualTo(address.getStreet());
+        assertThat(addressDTO.getZipcode()).isEqualTo(address.getZipcode());
+        assertThat(addressDTO.getNumber()).isEqualTo(address.getNumber());
+        assertThat(addressDTO.getCity()).isEqualTo(address.getCity());
+        assertThat(addressDTO.getMain()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should use the passed addresses, leaving addressSet null when there are none")
+    public void toDTOWithAddressesTest() {
+        // scenery
+        Person person = createPerson();
+
+        // execution
+        PersonDTO withAddresses = personMapper.toDTO(person, List.of(createAddress()));
+        PersonDTO withoutAddresses = personMapper.toDTO(person, null);
+
+        // validation
+        assertThat(withAddresses.getAddressSet()).hasSize(1);
+        assertThat(withoutAddresses.getAddressSet()).isNull();
+    }
+
+    private static Person createPerson() {
+        return Person.builder()
+                .id(1L)
+                .name("Fulano")
+                .cpf("486.031.170-12")
+                .birthDay(LocalDate.of(1998, 11, 25))
+                .addressSet(new HashSet<>(Set.of()))
+                .build();
+    }
+
+    private static Address createAddress() {
+        return Address.builder()
+                .id(1L)
+                .locality(Locality.builder()
+                        .zipcode("69098-384")
+                        .street("Rua Hortelã-do-Campo")
+                        .city("Manaus")
+                        .build())
+                .number(123)
+                .main(true)
+                .build();
+    }
+
+}
@@ -1,12 +1,14 @@
 package br.com.itstoony.attornatus.repository;
 
 import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Locality;
 import br.com.itstoony.attornatus.model.Person;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
@@ -14,8 +16,10 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @DataJpaTest
 @ActiveProfiles("test")
@@ -28,19 +32,20 @@ public class AddressRepositoryTest {
     @Autowired
     PersonRepository personRepository;
 
+    @Autowired
+    LocalityRepository localityRepository;
+
     @Test
     @DisplayName("Should return all addresses from a person")
     public void findByPersonTest() {
         // scenery
-        Address address = createAddress();
-        Person person = createPerson();
-        personRepository.save(person);
+        Person person = personRepository.saveAndFlush(createPerson());
 
+        Address address = createAddress();
+        address.setLocality(localityRepository.saveAndFlush(address.getLocality()));
         address.setPerson(person);
-        Address savedAddress = addressRepository.save(address);
-
-        person.getAddressSet().add(address);
-        personRepository.save(person);
+        Address savedAddress = addressRepository.saveAndFlush(address);
+        person.getAddressSet().add(savedAddress);
 
         // execution
         Page<Address> result = addressRepository.findByPerson(person, PageRequest.of(0, 10));
@@ -53,9 +58,96 @@ public class AddressRepositoryTest {
         assertThat(result.getTotalElements()).isEqualTo(1);
     }
 
+    @Test
+    @DisplayName("Should move the main flag to another address of the same person")
+    public void switchMainTest() {
+        // scenery
+        Person person = savePersonWithAddresses();
+        Address current = mainOf(person);
+        Address next = person.getAddressSet().stream().filter(a -> !a.getMain()).findFirst().orElseThrow();
+
+        // execution
+        int cleared = addressRepository.clearMain(person.getId(), next.getId());
+        int marked = addressRepository.markMain(person.getId(), next.getId());
+
+        // validation
+        assertThat(cleared).isEqualTo(1);
+        assertThat(marked).isEqualTo(1);
+        assertThat(addressRepository.findById(current.getId()).orElseThrow().getMain()).isFalse();
+        assertThat(addressRepository.findById(next.getId()).orElseThrow().getMain()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not mark as main an address of another person")
+    public void markMainOfAnotherPersonTest() {
+        // scenery
+        Person person = savePersonWithAddresses();
+
+        // execution
+        int marked = addressRepository.markMain(person.getId() + 1, mainOf(person).getId());
+
+        // validation
+        assertThat(marked).isZero();
+    }
+
+    @Test
+    @DisplayName("Should refuse a second main address for the same person")
+    public void uniqueMainTest() {
+        // scenery
+        Person person = savePersonWithAddresses();
+        Address other = person.getAddressSet().stream().filter(a -> !a.getMain()).findFirst().orElseThrow();
+
+        // execution
+        Throwable exception = catchThrowable(() -> addressRepository.markMain(person.getId(), other.getId()));
+
+        // validation
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Should list stored zipcodes once each, the most used first")
+    public void findMostUsedZipcodesTest() {
+        // scenery
+        Person person = savePersonWithAddresses();
+        Address other = createAddress();
+        other.setLocality(localityRepository.save(Locality.builder()
+                .zipcode("01001000")
+                .street("Praça da Sé")
+                .city("São Paulo")
+                .build()));
+        other.setPerson(person);
+        addressRepository.saveAndFlush(other);
+
+        // execution
+        List<String> zipcodes = addressRepository.findMostUsedZipcodes(PageRequest.ofSize(10));
+        List<String> hottest = addressRepository.findMostUsedZipcodes(PageRequest.ofSize(1));
+
+        // validation
+        assertThat(zipcodes).containsExactly("69098384", "01001000");
+        assertThat(hottest).containsExactly("69098384");
+    }
+
+    private Person savePersonWithAddresses() {
+        Person person = createPerson();
+        Locality locality = localityRepository.save(createAddress().getLocality());
+
+        for (int i = 0; i < 3; i++) {
+            Address address = createAddress();
+            address.setLocality(locality);
+            address.setNumber(i);
+            address.setMain(i == 0);
+            address.setPerson(person);
+            person.getAddressSet().add(address);
+        }
+        return personRepository.saveAndFlush(person);
+    }
+
+    private static Address mainOf(Person person) {
+        return person.getAddressSet().stream().filter(Address::getMain).findFirst().orElseThrow();
+    }
+
     private static Person createPerson() {
         return Person.builder()
-                .id(1L)
                 .name("Fulano")
                 .cpf("486.031.170-12")
                 .birthDay(LocalDate.of(1998, 11, 25))
@@ -66,11 +158,12 @@ public class AddressRepositoryTest {
 
     private static Address createAddress() {
         return Address.builder()
-                .id(1L)
-                .street("Rua Hortelã-do-Campo")
-                .zipcode("69098384")
+                .locality(Locality.builder()
+                        .zipcode("69098384")
+                        .street("Rua Hortelã-do-Campo")
+                        .city("Manaus")
+                        .build())
                 .number(123)
-                .city("Manaus")
                 .main(false)
                 .build();
     }
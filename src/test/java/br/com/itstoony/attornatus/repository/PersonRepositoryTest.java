@@ -1,6 +1,9 @@
 package br.com.itstoony.attornatus.repository;
 
 import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.model.PersonNameTrigram;
+import br.com.itstoony.attornatus.service.PersonNameIndex;
+import br.com.itstoony.attornatus.util.KeysetCursor;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -8,15 +11,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -26,6 +34,9 @@ public class PersonRepositoryTest {
     @Autowired
     PersonRepository personRepository;
 
+    @Autowired
+    PersonNameTrigramRepository trigramRepository;
+
     @Autowired
     TestEntityManager entityManager;
 
@@ -78,6 +89,120 @@ public class PersonRepositoryTest {
         assertThat(result.getTotalElements()).isEqualTo(1);
     }
 
+    @Test
+    @DisplayName("Should return a page of person filtering by name through the trigram index")
+    public void findByNameTrigramsTest() {
+        // scenery
+        Person fulano = personRepository.save(createPerson());
+        Person sicrano = createPerson();
+        sicrano.setName("Sicrano Ulano");
+        sicrano.setCpf("252.916.820-27");
+        sicrano = personRepository.save(sicrano);
+
+        for (Person person : List.of(fulano, sicrano)) {
+            PersonNameIndex.trigrams(person.getName())
+                    .forEach(trigram -> trigramRepository.save(new PersonNameTrigram(trigram, person.getId())));
+        }
+
+        Set<String> trigrams = PersonNameIndex.trigrams("fULan");
+
+        // execution
+        Page<Person> result = personRepository.findByNameTrigrams("fULan", trigrams, trigrams.size(),
+                PageRequest.of(0, 10));
+
+        // validation
+        assertThat(trigrams).containsExactlyInAnyOrder("ful", "ula", "lan");
+        assertThat(result.getContent()).containsExactly(fulano);
+        assertThat(result.getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should walk people ordered by name through keyset cursors")
+    public void findAfterTest() {
+        // scenery
+        for (String name : List.of("Carla", "Ana", "Bruno")) {
+            Person person = createPerson();
+            person.setName(name);
+            person.setCpf(name);
+            personRepository.save(person);
+        }
+
+        // execution
+        Slice<Person> first = personRepository.findAfter(null, Set.of(), KeysetCursor.first("name"), 2);
+        Person last = first.getContent().get(1);
+        Slice<Person> second = personRepository.findAfter(null, Set.of(),
+                new KeysetCursor("name", last.getName(), last.getId()), 2);
+
+        // validation
+        assertThat(first.getContent()).extracting(Person::getName).containsExactly("Ana", "Bruno");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting(Person::getName).containsExactly("Carla");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should return only the passed CPFs that are already registered")
+    public void findExistingCpfsTest() {
+        // scenery
+        Person person = createPerson();
+        personRepository.save(person);
+
+        // execution
+        Set<String> result = personRepository.findExistingCpfs(List.of(person.getCpf(), "252.916.820-27"));
+
+        // validation
+        assertThat(result).containsExactly(person.getCpf());
+    }
+
+    @Test
+    @DisplayName("Should bump the version of a person and read it alone")
+    public void incrementVersionTest() {
+        // scenery
+        Person person = personRepository.saveAndFlush(createPerson());
+        Long version = person.getVersion();
+
+        // execution
+        int updated = personRepository.incrementVersion(person.getId());
+        entityManager.clear();
+
+        // validation
+        assertThat(updated).isEqualTo(1);
+        assertThat(personRepository.findVersionById(person.getId())).contains(version + 1);
+    }
+
+    @Test
+    @DisplayName("Should refuse a second person with the same CPF")
+    public void uniqueCpfTest() {
+        // scenery
+        personRepository.saveAndFlush(createPerson());
+
+        Person duplicate = createPerson();
+        duplicate.setId(null);
+        duplicate.setName("Sicrano");
+
+        // execution
+        Throwable exception = catchThrowable(() -> personRepository.saveAndFlush(duplicate));
+
+        // validation
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Should insert a trigram row only when it isn't there yet")
+    public void insertTrigramIfAbsentTest() {
+        // scenery
+        Person person = personRepository.saveAndFlush(createPerson());
+
+        // execution
+        int first = trigramRepository.insertIfAbsent("ful", person.getId());
+        int second = trigramRepository.insertIfAbsent("ful", person.getId());
+
+        // validation
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        assertThat(trigramRepository.existsById(new PersonNameTrigram.Key("ful", person.getId()))).isTrue();
+    }
+
 
     private static Person createPerson() {
         return Person.builder()
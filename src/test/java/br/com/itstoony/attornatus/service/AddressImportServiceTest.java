@@ -0,0 +1,231 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.config.AddressImportProperties;
+import br.com.itstoony.attornatus.dto.AddressImportResultDTO;
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+import br.com.itstoony.attornatus.exception.ZipcodeLookupTimeoutException;
+import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Locality;
+import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.repository.AddressRepository;
+import br.com.itstoony.attornatus.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class AddressImportServiceTest {
+
+    AddressImportService addressImportService;
+
+    AddressImportProperties properties;
+
+    @MockBean
+    PersonRepository personRepository;
+
+    @MockBean
+    AddressRepository addressRepository;
+
+    @MockBean
+    ZipcodeService zipcodeService;
+
+    @MockBean
+    LocalityService localityService;
+
+    @MockBean
+    PersonViewCache personViewCache;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @MockBean
+    EntityManager entityManager;
+
+    @BeforeEach
+    public void setUp() {
+        this.properties = new AddressImportProperties();
+        this.addressImportService = new AddressImportService(personRepository, addressRepository,
+                new AddressService(zipcodeService, addressRepository, localityService), zipcodeService, personViewCache,
+                new TransactionTemplate(transactionManager), entityManager, properties);
+
+        when(personRepository.findExistingIds(anyCollection())).thenReturn(Set.of(1L, 2L));
+        when(personRepository.getReferenceById(anyLong()))
+                .thenAnswer(invocation -> Person.builder().id(invocation.getArgument(0)).build());
+        when(zipcodeService.findAsync(anyString()))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(createViaCepResponse())));
+        when(localityService.intern(any(ViaCepResponseDTO.class))).thenAnswer(invocation -> {
+            ViaCepResponseDTO response = invocation.getArgument(0);
+            return Locality.builder()
+                    .zipcode(response.getCep())
+                    .street(response.getLogradouro())
+                    .city(response.getLocalidade())
+                    .build();
+        });
+    }
+
+    @Test
+    @DisplayName("Should import every valid row in one insert batch, looking each zipcode up once")
+    @SuppressWarnings("unchecked")
+    public void importTest() throws IOException {
+        // scenery
+        String csv = """
+                person_id;zipcode;number
+                1;69098-384;10
+                2;"69098384";20
+                1;69098384;30
+                """;
+
+        // execution
+        AddressImportResultDTO result = addressImportService.importCsv(toStream(csv));
+
+        // validation
+        assertThat(result.getRows()).isEqualTo(3);
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getFailed()).isZero();
+        assertThat(result.getErrors()).isEmpty();
+
+        ArgumentCaptor<List<Address>> addresses = ArgumentCaptor.forClass(List.class);
+        verify(addressRepository, times(1)).saveAll(addresses.capture());
+        verify(zipcodeService, times(1)).findAsync("69098384");
+        verify(personRepository, times(1)).findExistingIds(Set.of(1L, 2L));
+        verify(personRepository, times(1)).incrementVersions(Set.of(1L, 2L));
+        verify(personViewCache, times(1)).invalidateAll(Set.of(1L, 2L));
+
+        assertThat(addresses.getValue()).extracting(Address::getNumber).containsExactly(10, 20, 30);
+        assertThat(addresses.getValue()).extracting(address -> address.getPerson().getId()).containsExactly(1L, 2L, 1L);
+        assertThat(addresses.getValue()).noneMatch(Address::getMain);
+    }
+
+    @Test
+    @DisplayName("Should report the line and errors of each row that can't be imported")
+    public void importInvalidRowsTest() throws IOException {
+        // scenery
+        when(zipcodeService.findAsync("00000000")).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        when(zipcodeService.findAsync("11111111"))
+                .thenReturn(CompletableFuture.failedFuture(new ZipcodeLookupTimeoutException("Too many zipcode lookups in progress")));
+
+        String csv = """
+                1,69098384,10
+                x,123,y
+                3,69098384,10
+
+                1,00000000,10
+                2,11111111,10
+                1,69098384
+                """;
+
+        // execution
+        AddressImportResultDTO result = addressImportService.importCsv(toStream(csv));
+
+        // validation
+        assertThat(result.getRows()).isEqualTo(6);
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(5);
+        assertThat(result.getErrors()).extracting(AddressImportResultDTO.RowError::getLine)
+                .containsExactly(2L, 3L, 5L, 6L, 7L);
+        assertThat(result.getErrors().get(0).getErrors())
+                .containsExactly("Person id must be a number", "Zipcode must have 8 digits", "Number must be a number");
+        assertThat(result.getErrors().get(1).getErrors()).containsExactly("Person not found");
+        assertThat(result.getErrors().get(2).getErrors()).containsExactly("Zipcode not found");
+        assertThat(result.getErrors().get(3).getErrors()).containsExactly("Zipcode lookup failed");
+        assertThat(result.getErrors().get(4).getErrors())
+                .containsExactly("Row must have a person id, a zipcode and a number");
+    }
+
+    @Test
+    @DisplayName("Should import in chunks, clearing the persistence context after each one")
+    public void importChunksTest() throws IOException {
+        // scenery
+        properties.setChunkSize(2);
+        String csv = "1,69098384,1\n1,69098384,2\n2,69098384,3\n2,69098384,4\n1,69098384,5\n";
+
+        // execution
+        AddressImportResultDTO result = addressImportService.importCsv(toStream(csv));
+
+        // validation
+        assertThat(result.getImported()).isEqualTo(5);
+
+        verify(addressRepository, times(3)).saveAll(anyList());
+        verify(personRepository, times(3)).findExistingIds(anyCollection());
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    @DisplayName("Should count every failed row but list only up to the limit")
+    public void importReportLimitTest() throws IOException {
+        // scenery
+        properties.setMaxReportedErrors(2);
+        String csv = "1,1,1\n2,2,2\n3,3,3\n";
+
+        // execution
+        AddressImportResultDTO result = addressImportService.importCsv(toStream(csv));
+
+        // validation
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getErrors()).hasSize(2);
+
+        verify(addressRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should keep at most the configured number of zipcode lookups in flight")
+    public void importBoundedLookupsTest() throws IOException {
+        // scenery
+        properties.setLookupParallelism(2);
+        Set<CompletableFuture<Optional<ViaCepResponseDTO>>> pending = new HashSet<>();
+        when(zipcodeService.findAsync(anyString())).thenAnswer(invocation -> {
+            long inFlight = pending.stream().filter(lookup -> !lookup.isDone()).count();
+            assertThat(inFlight).isLessThan(2);
+
+            CompletableFuture<Optional<ViaCepResponseDTO>> lookup = new CompletableFuture<>();
+            pending.add(lookup);
+            // completes on another thread, releasing its permit
+            CompletableFuture.runAsync(() -> lookup.complete(Optional.of(createViaCepResponse())));
+            return lookup;
+        });
+        String csv = "1,10000001,1\n1,10000002,1\n1,10000003,1\n1,10000004,1\n1,10000005,1\n";
+
+        // execution
+        AddressImportResultDTO result = addressImportService.importCsv(toStream(csv));
+
+        // validation
+        assertThat(result.getImported()).isEqualTo(5);
+
+        verify(zipcodeService, times(5)).findAsync(anyString());
+    }
+
+    private static ByteArrayInputStream toStream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ViaCepResponseDTO createViaCepResponse() {
+        return ViaCepResponseDTO.builder()
+                .cep("69098-384")
+                .localidade("Manaus")
+                .logradouro("Rua Hortelã-do-Campo")
+                .build();
+    }
+
+}
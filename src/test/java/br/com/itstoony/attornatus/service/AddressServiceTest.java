@@ -1,10 +1,11 @@
 package br.com.itstoony.attornatus.service;
 
-import br.com.itstoony.attornatus.client.ViaCepClient;
 import br.com.itstoony.attornatus.dto.RegisteringPersonRecord;
 import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
 import br.com.itstoony.attornatus.exception.BusinessException;
+import br.com.itstoony.attornatus.exception.ZipcodeLookupTimeoutException;
 import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Locality;
 import br.com.itstoony.attornatus.model.Person;
 import br.com.itstoony.attornatus.repository.AddressRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -25,6 +26,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -41,11 +43,23 @@ public class AddressServiceTest {
     AddressRepository addressRepository;
 
     @MockBean
-    ViaCepClient viaCepClient;
+    ZipcodeService zipcodeService;
+
+    @MockBean
+    LocalityService localityService;
 
     @BeforeEach
     public void setUp() {
-        this.addressService = new AddressService(viaCepClient, addressRepository);
+        this.addressService = new AddressService(zipcodeService, addressRepository, localityService);
+
+        when(localityService.intern(any(ViaCepResponseDTO.class))).thenAnswer(invocation -> {
+            ViaCepResponseDTO response = invocation.getArgument(0);
+            return Locality.builder()
+                    .zipcode(response.getCep())
+                    .street(response.getLogradouro())
+                    .city(response.getLocalidade())
+                    .build();
+        });
     }
 
     @Test
@@ -53,10 +67,8 @@ public class AddressServiceTest {
     public void findByRegisteringDTO() {
         // scenery
         RegisteringPersonRecord dto = createRegisteringPersonDTO();
-        Address savedAddress = createAddress();
 
-        BDDMockito.when(viaCepClient.getZipcode(dto.zipcode())).thenReturn(createViaCepResponse());
-        when(addressRepository.save(any(Address.class))).thenReturn(savedAddress);
+        BDDMockito.when(zipcodeService.findAsync(dto.zipcode())).thenReturn(CompletableFuture.completedFuture(Optional.of(createViaCepResponse())));
 
         // execution
         Address address = addressService.findFromDTO(createRegisteringPersonDTO());
@@ -67,8 +79,10 @@ public class AddressServiceTest {
         assertThat(address.getCity()).isEqualTo(createAddress().getCity());
         assertThat(address.getStreet()).isEqualTo(createAddress().getStreet());
         assertThat(address.getMain()).isFalse();
+        assertThat(address.getId()).isNull();
 
-        verify(addressRepository, times(1)).save(any(Address.class));
+        // it's inserted along with its person
+        verify(addressRepository, never()).save(any(Address.class));
     }
 
     @Test
@@ -86,6 +100,42 @@ public class AddressServiceTest {
         verify(addressRepository, never()).save(any(Address.class));
     }
 
+    @Test
+    @DisplayName("Should throw a BusinessException when the zipcode doesn't exist")
+    public void findByUnknownZipcodeTest() {
+        // scenery
+        RegisteringPersonRecord dto = createRegisteringPersonDTO();
+
+        when(zipcodeService.findAsync(dto.zipcode())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        // execution
+        Throwable exception = catchThrowable(() -> addressService.findFromDTO(dto));
+
+        // validation
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Zipcode not found");
+
+        verify(addressRepository, never()).save(any(Address.class));
+    }
+
+    @Test
+    @DisplayName("Should rethrow the timeout of a zipcode lookup that passed its deadline")
+    public void findByTimedOutZipcodeTest() {
+        // scenery
+        RegisteringPersonRecord dto = createRegisteringPersonDTO();
+        CompletableFuture<Optional<ViaCepResponseDTO>> lookup =
+                CompletableFuture.failedFuture(new ZipcodeLookupTimeoutException("Zipcode lookup took longer than PT2S"));
+
+        // execution
+        Throwable exception = catchThrowable(() -> addressService.findFromDTO(dto, lookup));
+
+        // validation
+        assertThat(exception).isInstanceOf(ZipcodeLookupTimeoutException.class);
+
+        verify(addressRepository, never()).save(any(Address.class));
+    }
+
     @Test
     @DisplayName("Should return an Address by it's ID")
     public void findByIDTest() {
@@ -164,10 +214,12 @@ public class AddressServiceTest {
     private static Address createAddress() {
         return Address.builder()
                 .id(1L)
-                .street("Rua Hortelã-do-Campo")
-                .zipcode("69098384")
+                .locality(Locality.builder()
+                        .zipcode("69098384")
+                        .street("Rua Hortelã-do-Campo")
+                        .city("Manaus")
+                        .build())
                 .number(123)
-                .city("Manaus")
                 .main(false)
                 .build();
     }
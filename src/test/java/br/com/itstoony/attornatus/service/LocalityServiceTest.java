@@ -0,0 +1,117 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.config.ZipcodeProperties;
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+import br.com.itstoony.attornatus.model.Locality;
+import br.com.itstoony.attornatus.repository.LocalityRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class LocalityServiceTest {
+
+    LocalityService localityService;
+
+    MeterRegistry meterRegistry;
+
+    @MockBean
+    LocalityRepository localityRepository;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.localityService = new LocalityService(localityRepository, new TransactionTemplate(transactionManager),
+                new ZipcodeProperties(), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should read a zipcode's locality once and hand out the same instance afterwards")
+    public void internTest() {
+        // scenery
+        Locality stored = createLocality();
+        when(localityRepository.findByZipcode("69098-384")).thenReturn(Optional.of(stored));
+
+        // execution
+        Locality first = localityService.intern(createViaCepResponse());
+        Locality second = localityService.intern(createViaCepResponse());
+
+        // validation
+        assertThat(first).isSameAs(stored);
+        assertThat(second).isSameAs(stored);
+        verify(localityRepository, times(1)).findByZipcode("69098-384");
+        verify(localityRepository, never()).saveAndFlush(any(Locality.class));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", LocalityService.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should store the locality of a zipcode seen for the first time")
+    public void internNewTest() {
+        // scenery
+        when(localityRepository.findByZipcode("69098-384")).thenReturn(Optional.empty());
+        when(localityRepository.saveAndFlush(any(Locality.class))).thenAnswer(invocation -> {
+            Locality locality = invocation.getArgument(0);
+            return new Locality(1L, locality.getZipcode(), locality.getStreet(), locality.getCity());
+        });
+
+        // execution
+        Locality locality = localityService.intern(createViaCepResponse());
+
+        // validation
+        assertThat(locality.getId()).isEqualTo(1L);
+        assertThat(locality.getZipcode()).isEqualTo("69098-384");
+        assertThat(locality.getStreet()).isEqualTo("Rua Hortelã-do-Campo");
+        assertThat(locality.getCity()).isEqualTo("Manaus");
+        verify(localityRepository, times(1)).saveAndFlush(any(Locality.class));
+    }
+
+    @Test
+    @DisplayName("Should read the locality stored by someone else when its insert loses the race")
+    public void internConcurrentTest() {
+        // scenery
+        Locality stored = createLocality();
+        when(localityRepository.findByZipcode("69098-384")).thenReturn(Optional.empty(), Optional.of(stored));
+        when(localityRepository.saveAndFlush(any(Locality.class)))
+                .thenThrow(new DataIntegrityViolationException(Locality.ZIPCODE_CONSTRAINT));
+
+        // execution
+        Locality locality = localityService.intern(createViaCepResponse());
+
+        // validation
+        assertThat(locality).isSameAs(stored);
+        verify(localityRepository, times(2)).findByZipcode("69098-384");
+    }
+
+    private static Locality createLocality() {
+        return new Locality(1L, "69098-384", "Rua Hortelã-do-Campo", "Manaus");
+    }
+
+    private static ViaCepResponseDTO createViaCepResponse() {
+        return ViaCepResponseDTO.builder()
+                .cep("69098-384")
+                .localidade("Manaus")
+                .logradouro("Rua Hortelã-do-Campo")
+                .build();
+    }
+
+}
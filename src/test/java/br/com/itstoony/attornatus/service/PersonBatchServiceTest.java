@@ -0,0 +1,223 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.config.CpfFilterProperties;
+import br.com.itstoony.attornatus.dto.RegisteringPersonRecord;
+import br.com.itstoony.attornatus.dto.RegistrationResultDTO;
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+import br.com.itstoony.attornatus.exception.BusinessException;
+import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Locality;
+import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.repository.AddressRepository;
+import br.com.itstoony.attornatus.repository.PersonRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class PersonBatchServiceTest {
+
+    PersonBatchService personBatchService;
+
+    CpfFilter cpfFilter;
+
+    @MockBean
+    PersonRepository personRepository;
+
+    @MockBean
+    AddressRepository addressRepository;
+
+    @MockBean
+    ZipcodeService zipcodeService;
+
+    @MockBean
+    LocalityService localityService;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @MockBean
+    PersonNameIndex personNameIndex;
+
+    @MockBean
+    PersonViewCache personViewCache;
+
+    @BeforeEach
+    public void setUp() {
+        AddressService addressService = new AddressService(zipcodeService, addressRepository, localityService);
+        this.cpfFilter = new CpfFilter(personRepository, new CpfFilterProperties(), new SimpleMeterRegistry());
+        this.personBatchService = new PersonBatchService(personRepository, addressService,
+                zipcodeService, personNameIndex, cpfFilter, personViewCache, Validation.buildDefaultValidatorFactory().getValidator(),
+                new TransactionTemplate(transactionManager));
+
+        when(zipcodeService.find(anyString())).thenReturn(Optional.of(createViaCepResponse()));
+        when(personRepository.findExistingCpfs(anyCollection())).thenReturn(Collections.emptySet());
+        when(localityService.intern(any(ViaCepResponseDTO.class))).thenAnswer(invocation -> {
+            ViaCepResponseDTO response = invocation.getArgument(0);
+            return Locality.builder()
+                    .zipcode(response.getCep())
+                    .street(response.getLogradouro())
+                    .city(response.getLocalidade())
+                    .build();
+        });
+    }
+
+    @Test
+    @DisplayName("Should register every valid person of the batch, resolving each zipcode once")
+    @SuppressWarnings("unchecked")
+    public void registerTest() {
+        // scenery
+        List<RegisteringPersonRecord> records = List.of(
+                createRegisteringPersonDTO("486.031.170-12"),
+                createRegisteringPersonDTO("252.916.820-27")
+        );
+
+        // execution
+        List<RegistrationResultDTO> results = personBatchService.register(records);
+
+        // validation
+        assertThat(results).extracting(RegistrationResultDTO::getStatus)
+                .containsExactly(RegistrationResultDTO.Status.CREATED, RegistrationResultDTO.Status.CREATED);
+        assertThat(results).extracting(RegistrationResultDTO::getIndex).containsExactly(0, 1);
+
+        ArgumentCaptor<List<Person>> people = ArgumentCaptor.forClass(List.class);
+        verify(personRepository, times(1)).saveAll(people.capture());
+        verify(addressRepository, never()).saveAll(anyList());
+        verify(personRepository, times(1)).findExistingCpfs(anyCollection());
+        verify(zipcodeService, times(1)).find("69098384");
+        verify(personNameIndex, times(1)).index(people.getValue());
+
+        List<Address> addresses = people.getValue().stream()
+                .flatMap(person -> person.getAddressSet().stream())
+                .toList();
+
+        assertThat(people.getValue()).hasSize(2);
+        assertThat(addresses).hasSize(2);
+        assertThat(addresses).allMatch(Address::getMain);
+        assertThat(addresses.get(0).getPerson()).isSameAs(people.getValue().get(0));
+    }
+
+    @Test
+    @DisplayName("Should report invalid rows, taken and repeated CPFs as failed without registering them")
+    public void registerInvalidRowsTest() {
+        // scenery
+        List<RegisteringPersonRecord> records = List.of(
+                new RegisteringPersonRecord("", "", null, "", 10),
+                createRegisteringPersonDTO("486.031.170-12"),
+                createRegisteringPersonDTO("252.916.820-27"),
+                createRegisteringPersonDTO("252.916.820-27")
+        );
+
+        when(personRepository.findExistingCpfs(anyCollection())).thenReturn(Set.of("486.031.170-12"));
+
+        // execution
+        List<RegistrationResultDTO> results = personBatchService.register(records);
+
+        // validation
+        assertThat(results.get(0).getStatus()).isEqualTo(RegistrationResultDTO.Status.FAILED);
+        assertThat(results.get(0).getErrors()).isNotEmpty();
+        assertThat(results.get(1).getStatus()).isEqualTo(RegistrationResultDTO.Status.FAILED);
+        assertThat(results.get(1).getErrors()).containsExactly("CPF already registered");
+        assertThat(results.get(2).getStatus()).isEqualTo(RegistrationResultDTO.Status.CREATED);
+        assertThat(results.get(3).getStatus()).isEqualTo(RegistrationResultDTO.Status.FAILED);
+        assertThat(results.get(3).getErrors()).containsExactly("CPF already registered");
+    }
+
+    @Test
+    @DisplayName("Should look up CPFs the filter rules out, since another instance may have registered them")
+    public void registerFilteredCpfsTest() {
+        // scenery
+        List<RegisteringPersonRecord> records = List.of(
+                createRegisteringPersonDTO("486.031.170-12"),
+                createRegisteringPersonDTO("252.916.820-27")
+        );
+
+        when(personRepository.streamCpfs()).thenReturn(Stream.empty());
+        cpfFilter.build();
+        when(personRepository.findExistingCpfs(anyCollection())).thenReturn(Set.of("486.031.170-12"));
+
+        // execution
+        List<RegistrationResultDTO> results = personBatchService.register(records);
+
+        // validation
+        assertThat(results).extracting(RegistrationResultDTO::getStatus)
+                .containsExactly(RegistrationResultDTO.Status.FAILED, RegistrationResultDTO.Status.CREATED);
+        verify(personRepository, times(1)).findExistingCpfs(Set.of("486.031.170-12", "252.916.820-27"));
+        assertThat(cpfFilter.mightExist("252.916.820-27")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should fail only the rows whose zipcode couldn't be resolved")
+    public void registerUnknownZipcodeTest() {
+        // scenery
+        RegisteringPersonRecord unknown = new RegisteringPersonRecord("Fulano", "486.031.170-12",
+                LocalDate.of(1998, 11, 25), "00000000", 123);
+        RegisteringPersonRecord unreachable = new RegisteringPersonRecord("Beltrano", "874.176.280-01",
+                LocalDate.of(1998, 11, 25), "11111111", 123);
+        RegisteringPersonRecord valid = createRegisteringPersonDTO("252.916.820-27");
+
+        when(zipcodeService.find("00000000")).thenReturn(Optional.empty());
+        when(zipcodeService.find("11111111")).thenThrow(new IllegalStateException("ViaCEP is down"));
+
+        // execution
+        List<RegistrationResultDTO> results = personBatchService.register(List.of(unknown, unreachable, valid));
+
+        // validation
+        assertThat(results.get(0).getErrors()).containsExactly("Zipcode not found");
+        assertThat(results.get(1).getErrors()).containsExactly("Zipcode lookup failed");
+        assertThat(results.get(2).getStatus()).isEqualTo(RegistrationResultDTO.Status.CREATED);
+    }
+
+    @Test
+    @DisplayName("Should refuse batches bigger than the limit")
+    public void registerOversizedBatchTest() {
+        // scenery
+        List<RegisteringPersonRecord> records = IntStream.rangeClosed(0, PersonBatchService.MAX_BATCH_SIZE)
+                .mapToObj(i -> createRegisteringPersonDTO("486.031.170-12"))
+                .toList();
+
+        // execution
+        Throwable exception = catchThrowable(() -> personBatchService.register(records));
+
+        // validation
+        assertThat(exception).isInstanceOf(BusinessException.class);
+
+        verify(personRepository, never()).saveAll(anyList());
+    }
+
+    private static RegisteringPersonRecord createRegisteringPersonDTO(String cpf) {
+        return new RegisteringPersonRecord("Fulano", cpf, LocalDate.of(1998, 11, 25), "69098384", 123);
+    }
+
+    private static ViaCepResponseDTO createViaCepResponse() {
+        return ViaCepResponseDTO.builder()
+                .cep("69098-384")
+                .localidade("Manaus")
+                .logradouro("Rua Hortelã-do-Campo")
+                .build();
+    }
+
+}
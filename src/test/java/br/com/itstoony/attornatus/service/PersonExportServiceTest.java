@@ -0,0 +1,133 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.mapper.AddressMapper;
+import br.com.itstoony.attornatus.mapper.PersonMapper;
+import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Locality;
+import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.repository.AddressRepository;
+import br.com.itstoony.attornatus.repository.LocalityRepository;
+import br.com.itstoony.attornatus.repository.PersonRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class PersonExportServiceTest {
+
+    PersonExportService personExportService;
+
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Autowired
+    PersonRepository personRepository;
+
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    LocalityRepository localityRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @BeforeEach
+    public void setUp() {
+        this.personExportService = new PersonExportService(personRepository, addressRepository,
+                entityManager, objectMapper, new PersonMapper(new AddressMapper()));
+    }
+
+    @Test
+    @DisplayName("Should write one JSON line per person, across several chunks")
+    public void exportTest() throws Exception {
+        // scenery
+        int total = PersonExportService.CHUNK_SIZE + 3;
+        IntStream.range(0, total).forEach(i -> savePerson("Fulano " + i));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // execution
+        long exported = personExportService.export(false, output);
+
+        // validation
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(exported).isEqualTo(total);
+        assertThat(lines).hasSize(total);
+
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("name").asText()).isEqualTo("Fulano 0");
+        assertThat(first.get("birthDay").asText()).isEqualTo("1998-11-25");
+        assertThat(first.get("addressSet").isNull()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should include each person's addresses when asked to")
+    public void exportWithAddressesTest() throws Exception {
+        // scenery
+        Person person = savePerson("Fulano");
+        savePerson("Sicrano");
+
+        Address address = Address.builder()
+                .locality(localityRepository.save(Locality.builder()
+                        .zipcode("69098-384")
+                        .street("Rua Hortelã-do-Campo")
+                        .city("Manaus")
+                        .build()))
+                .number(123)
+                .main(true)
+                .person(person)
+                .build();
+        addressRepository.save(address);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // execution
+        personExportService.export(true, output);
+
+        // validation
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(2);
+
+        JsonNode fulano = objectMapper.readTree(lines.get(0));
+        assertThat(fulano.get("addressSet")).hasSize(1);
+        assertThat(fulano.get("addressSet").get(0).get("city").asText()).isEqualTo("Manaus");
+
+        JsonNode sicrano = objectMapper.readTree(lines.get(1));
+        assertThat(sicrano.get("addressSet")).isEmpty();
+    }
+
+    private int saved;
+
+    private Person savePerson(String name) {
+        return personRepository.save(Person.builder()
+                .name(name)
+                .cpf("%011d".formatted(++saved))
+                .birthDay(LocalDate.of(1998, 11, 25))
+                .addressSet(new HashSet<>())
+                .build());
+    }
+
+}
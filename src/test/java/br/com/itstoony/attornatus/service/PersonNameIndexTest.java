@@ -0,0 +1,114 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.model.Backfill;
+import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.repository.BackfillRepository;
+import br.com.itstoony.attornatus.repository.PersonNameTrigramRepository;
+import br.com.itstoony.attornatus.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class PersonNameIndexTest {
+
+    PersonNameIndex personNameIndex;
+
+    @MockBean
+    PersonNameTrigramRepository trigramRepository;
+
+    @MockBean
+    BackfillRepository backfillRepository;
+
+    @MockBean
+    PersonRepository personRepository;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        this.personNameIndex = new PersonNameIndex(trigramRepository, backfillRepository, personRepository,
+                new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    @DisplayName("Should index people missing from the trigram index and record the backfill as done")
+    public void backfillTest() {
+        // scenery
+        Person unindexed = createPerson(1L, "Fulano");
+        Person tooShort = createPerson(2L, "Al");
+        when(backfillRepository.existsById(PersonNameIndex.BACKFILL)).thenReturn(false);
+        when(personRepository.findWithoutTrigrams(anyLong(), any())).thenReturn(List.of(unindexed, tooShort));
+
+        // execution
+        personNameIndex.backfill();
+
+        // validation
+        PersonNameIndex.trigrams("Fulano").forEach(trigram -> verify(trigramRepository).insertIfAbsent(trigram, 1L));
+        verify(trigramRepository, times(4)).insertIfAbsent(anyString(), anyLong());
+        verify(trigramRepository, never()).saveAll(any());
+
+        ArgumentCaptor<Backfill> record = ArgumentCaptor.forClass(Backfill.class);
+        verify(backfillRepository).save(record.capture());
+        assertThat(record.getValue().getName()).isEqualTo(PersonNameIndex.BACKFILL);
+    }
+
+    @Test
+    @DisplayName("Should finish the backfill when another instance recorded it meanwhile")
+    public void backfillRecordedMeanwhileTest() {
+        // scenery
+        when(backfillRepository.existsById(PersonNameIndex.BACKFILL)).thenReturn(false);
+        when(personRepository.findWithoutTrigrams(anyLong(), any())).thenReturn(List.of());
+        when(backfillRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // execution
+        Throwable exception = catchThrowable(() -> personNameIndex.backfill());
+
+        // validation
+        assertThat(exception).isNull();
+    }
+
+    @Test
+    @DisplayName("Should skip the backfill once it is marked as done")
+    public void backfillDoneTest() {
+        // scenery
+        when(backfillRepository.existsById(PersonNameIndex.BACKFILL)).thenReturn(true);
+
+        // execution
+        personNameIndex.backfill();
+
+        // validation
+        verify(personRepository, never()).findWithoutTrigrams(anyLong(), any());
+        verify(backfillRepository, never()).save(any());
+    }
+
+    private static Person createPerson(Long id, String name) {
+        return Person.builder()
+                .id(id)
+                .name(name)
+                .cpf("486.031.170-12")
+                .birthDay(LocalDate.of(1998, 11, 25))
+                .build();
+    }
+
+}
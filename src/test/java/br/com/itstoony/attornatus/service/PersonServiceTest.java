@@ -1,31 +1,42 @@
 package br.com.itstoony.attornatus.service;
 
+import br.com.itstoony.attornatus.config.CpfFilterProperties;
 import br.com.itstoony.attornatus.dto.RegisteringPersonRecord;
 import br.com.itstoony.attornatus.dto.UpdatingPersonRecord;
 import br.com.itstoony.attornatus.exception.BusinessException;
 import br.com.itstoony.attornatus.model.Address;
+import br.com.itstoony.attornatus.model.Locality;
 import br.com.itstoony.attornatus.model.Person;
 import br.com.itstoony.attornatus.repository.AddressRepository;
 import br.com.itstoony.attornatus.repository.PersonRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -34,15 +45,28 @@ public class PersonServiceTest {
 
     PersonService personService;
 
+    CpfFilter cpfFilter;
+
     @MockBean
     PersonRepository personRepository;
 
     @MockBean
     AddressRepository addressRepository;
 
+    @MockBean
+    PersonNameIndex personNameIndex;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @MockBean
+    PersonViewCache personViewCache;
+
     @BeforeEach
     public void setUp() {
-        this.personService = new PersonService(personRepository, addressRepository);
+        this.cpfFilter = new CpfFilter(personRepository, new CpfFilterProperties(), new SimpleMeterRegistry());
+        this.personService = new PersonService(personRepository, addressRepository, personNameIndex, cpfFilter,
+                new TransactionTemplate(transactionManager), personViewCache);
     }
 
     @Test
@@ -57,14 +81,17 @@ public class PersonServiceTest {
         savedPerson.setId(1L);
         savedPerson.getAddressSet().add(address);
 
-        when(addressRepository.save(any(Address.class)))
-                .thenReturn(address);
         when(personRepository.save(any(Person.class)))
                 .thenReturn(savedPerson);
 
         // execution
         Person saved = personService.register(dto, address);
 
+        // the address cascades from the person
+        verify(addressRepository, never()).save(any(Address.class));
+        verify(transactionManager, times(1)).commit(any());
+        assertThat(address.getPerson().getCpf()).isEqualTo(dto.cpf());
+
         // implementation
         assertThat(saved.getId()).isNotNull();
         assertThat(saved.getName()).isEqualTo(dto.name());
@@ -118,6 +145,64 @@ public class PersonServiceTest {
         verify(personRepository, Mockito.never()).save(any(Person.class));
     }
 
+    @Test
+    @DisplayName("Should reject an already saved CPF without waiting for the pending address")
+    public void registerAlreadySavedCpfWithPendingAddressTest() {
+        // scenery
+        RegisteringPersonRecord dto = createRegisteringPersonDTO();
+
+        when(personRepository.existsByCpf(dto.cpf())).thenReturn(true);
+
+        // execution
+        Throwable exception = catchThrowable(() -> personService.register(dto, () -> {
+            throw new AssertionError("address must not be resolved");
+        }));
+
+        // validation
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("CPF already registered");
+    }
+
+    @Test
+    @DisplayName("Should register without querying the CPF when the filter rules it out")
+    public void registerFilteredCpfTest() {
+        // scenery
+        RegisteringPersonRecord dto = createRegisteringPersonDTO();
+        Address address = createAddress();
+
+        when(personRepository.streamCpfs()).thenReturn(Stream.of("252.916.820-27"));
+        cpfFilter.build();
+
+        when(personRepository.save(any(Person.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // execution
+        personService.register(dto, address);
+
+        // validation
+        verify(personRepository, never()).existsByCpf(anyString());
+        assertThat(cpfFilter.mightExist(dto.cpf())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should throw a BusinessException when the unique constraint catches a CPF registered meanwhile")
+    public void registerCpfConflictTest() {
+        // scenery
+        RegisteringPersonRecord dto = createRegisteringPersonDTO();
+        Address address = createAddress();
+
+        when(personRepository.save(any(Person.class))).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Unique index or primary key violation: \"PUBLIC.UK_PERSON_CPF_INDEX_8 ON PUBLIC.PERSON(CPF)\"")));
+
+        // execution
+        Throwable exception = catchThrowable(() -> personService.register(dto, address));
+
+        // validation
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("CPF already registered");
+    }
+
     @Test
     @DisplayName("Validates if a person exists in database by passed 'CPF'")
     public void existsByCPFTest() {
@@ -186,6 +271,7 @@ public class PersonServiceTest {
         assertThat(updatedPerson.getName()).isEqualTo(update.name());
         assertThat(updatedPerson.getBirthDay()).isEqualTo(update.birthDay());
         verify(personRepository, times(1)).save(person);
+        verify(personViewCache, times(1)).invalidate(person.getId());
     }
 
     @Test
@@ -240,7 +326,8 @@ public class PersonServiceTest {
 
         PageImpl<Person> page = new PageImpl<>(list, pageRequest, 1);
 
-        when(personRepository.findByName(any(String.class), any(Pageable.class))).thenReturn(page);
+        when(personRepository.findByNameTrigrams(any(String.class), anyCollection(), anyLong(), any(Pageable.class)))
+                .thenReturn(page);
 
         // execution
         Page<Person> result = personService.find(name, pageRequest);
@@ -253,6 +340,42 @@ public class PersonServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Should search names too short for the trigram index with a plain filter")
+    public void findShortNameTest() {
+        // scenery
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        PageImpl<Person> page = new PageImpl<>(Collections.singletonList(createPerson()), pageRequest, 1);
+
+        when(personRepository.findByName("fu", pageRequest)).thenReturn(page);
+
+        // execution
+        Page<Person> result = personService.find("fu", pageRequest);
+
+        // validation
+        assertThat(result.getContent()).hasSize(1);
+
+        verify(personRepository, never())
+                .findByNameTrigrams(any(String.class), anyCollection(), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should index the new name of a renamed person")
+    public void updateReindexesNameTest() {
+        // scenery
+        Person person = createPerson();
+        UpdatingPersonRecord update = createUpdatingPersonDTO();
+
+        when(personRepository.existsByCpf(person.getCpf())).thenReturn(true);
+        when(personRepository.save(person)).thenReturn(person);
+
+        // execution
+        personService.update(person, update);
+
+        // validation
+        verify(personNameIndex, times(1)).reindex(person);
+    }
+
     @Test
     @DisplayName("Should add an address to a person's set")
     public void addAddressTest() {
@@ -266,16 +389,17 @@ public class PersonServiceTest {
 
         when(personRepository.existsByCpf(person.getCpf())).thenReturn(true);
         when(addressRepository.save(address)).thenReturn(address);
-        when(personRepository.save(person)).thenReturn(person);
 
         // execution
         Person updatedPerson = personService.addAddress(person, address);
 
         // validation
         assertThat(updatedPerson.getAddressSet().contains(address)).isTrue();
+        assertThat(address.getPerson()).isSameAs(person);
 
-        verify(personRepository, times(1)).save(any(Person.class));
-        verify(addressRepository, times(2)).save(any(Address.class));
+        verify(personRepository, never()).save(any(Person.class));
+        verify(addressRepository, times(1)).save(any(Address.class));
+        verify(personViewCache, times(1)).invalidate(person.getId());
     }
 
     @Test
@@ -302,47 +426,41 @@ public class PersonServiceTest {
     }
 
     @Test
-    @DisplayName("Should set an address as main")
+    @DisplayName("Should set an address as main with two targeted updates")
     public void setAddressAsMainTest() {
         // scenery
         Address address1 = createAddress();
-        Address address2 = Address.builder().zipcode("22222222").build();
-
-        address1.setMain(true);
-        address2.setMain(false);
+        Address address2 = Address.builder().id(2L)
+                .locality(Locality.builder().zipcode("22222222").build()).main(false).build();
 
         Person person = createPerson();
         person.getAddressSet().add(address1);
         person.getAddressSet().add(address2);
 
-        when(addressRepository.save(address1)).thenReturn(address1);
-        when(addressRepository.save(address2)).thenReturn(address2);
-        when(personRepository.save(person)).thenReturn(person);
+        Address reloaded1 = Address.builder().id(1L).locality(address1.getLocality()).main(false).build();
+        Address reloaded2 = Address.builder().id(2L).locality(address2.getLocality()).main(true).build();
+        Person reloaded = createPerson();
+        reloaded.getAddressSet().addAll(List.of(reloaded1, reloaded2));
+
         when(personRepository.existsByCpf(Mockito.any(String.class))).thenReturn(true);
+        when(addressRepository.clearMain(person.getId(), address2.getId())).thenReturn(1);
+        when(addressRepository.markMain(person.getId(), address2.getId())).thenReturn(1);
+        when(personRepository.findById(person.getId())).thenReturn(Optional.of(reloaded));
 
         // execution
         Person result = personService.setAddressAsMain(person, address2);
 
         // validation
-        assertThat(result.getAddressSet().contains(address1)).isTrue();
-        assertThat(result.getAddressSet().contains(address2)).isTrue();
-
-        assertThat(result.getAddressSet()
-                .stream()
-                .filter( a -> Objects.equals(a.getZipcode(), address1.getZipcode()))
-                .toList()
-                .get(0)
-                .getMain()).isFalse();
+        assertThat(result.getAddressSet())
+                .filteredOn(Address::getMain)
+                .extracting(Address::getId)
+                .containsExactly(2L);
 
-        assertThat(result.getAddressSet()
-                .stream()
-                .filter( a -> Objects.equals(a.getZipcode(), address2.getZipcode()))
-                .toList()
-                .get(0)
-                .getMain()).isTrue();
-
-        verify(addressRepository, times(1)).save(any(Address.class));
-        verify(personRepository, times(1)).save(any(Person.class));
+        verify(addressRepository, times(1)).clearMain(person.getId(), address2.getId());
+        verify(addressRepository, times(1)).markMain(person.getId(), address2.getId());
+        verify(addressRepository, never()).save(any(Address.class));
+        verify(personRepository, never()).save(any(Person.class));
+        verify(personViewCache, times(1)).invalidate(person.getId());
     }
 
     @Test
@@ -381,10 +499,12 @@ public class PersonServiceTest {
     private static Address createAddress() {
         return Address.builder()
                 .id(1L)
-                .street("Rua Exemplo")
-                .zipcode("12345678")
+                .locality(Locality.builder()
+                        .zipcode("12345678")
+                        .street("Rua Exemplo")
+                        .city("São Paulo")
+                        .build())
                 .number(123)
-                .city("São Paulo")
                 .main(false)
                 .build();
     }
@@ -0,0 +1,179 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.config.DataSourceRoutingProperties;
+import br.com.itstoony.attornatus.config.PersonCacheProperties;
+import br.com.itstoony.attornatus.mapper.AddressMapper;
+import br.com.itstoony.attornatus.mapper.PersonMapper;
+import br.com.itstoony.attornatus.model.Person;
+import br.com.itstoony.attornatus.repository.PersonRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class PersonViewCacheTest {
+
+    PersonViewCache personViewCache;
+
+    MeterRegistry meterRegistry;
+
+    @MockBean
+    PersonRepository personRepository;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.personViewCache = createCache(new PersonCacheProperties());
+    }
+
+    @Test
+    @DisplayName("Should read a person once and serve the next finds from the cache")
+    public void findTest() {
+        // scenery
+        when(personRepository.findById(1L)).thenReturn(Optional.of(createPerson()));
+
+        // execution
+        Optional<PersonViewCache.View> first = personViewCache.find(1L);
+        Optional<PersonViewCache.View> second = personViewCache.find(1L);
+
+        // validation
+        assertThat(first).isPresent();
+        assertThat(first.get().person().getName()).isEqualTo("Fulano");
+        assertThat(first.get().version()).isEqualTo(3L);
+        assertThat(second.get()).isSameAs(first.get());
+        verify(personRepository, times(1)).findById(1L);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", PersonViewCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should cache unknown ids too")
+    public void findUnknownTest() {
+        // scenery
+        when(personRepository.findById(2L)).thenReturn(Optional.empty());
+
+        // execution
+        Optional<PersonViewCache.View> first = personViewCache.find(2L);
+        Optional<PersonViewCache.View> second = personViewCache.find(2L);
+
+        // validation
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        verify(personRepository, times(1)).findById(2L);
+    }
+
+    @Test
+    @DisplayName("Should read the person again after it was invalidated")
+    public void invalidateTest() {
+        // scenery
+        Person person = createPerson();
+        when(personRepository.findById(1L)).thenReturn(Optional.of(person));
+        personViewCache.find(1L);
+
+        person.setName("Sicrano");
+
+        // execution
+        personViewCache.invalidate(1L);
+        Optional<PersonViewCache.View> result = personViewCache.find(1L);
+
+        // validation
+        assertThat(result.get().person().getName()).isEqualTo("Sicrano");
+        verify(personRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should take the version from the cached view, and read it alone otherwise")
+    public void findVersionTest() {
+        // scenery
+        when(personRepository.findById(1L)).thenReturn(Optional.of(createPerson()));
+        when(personRepository.findVersionById(2L)).thenReturn(Optional.of(7L));
+        personViewCache.find(1L);
+
+        // execution
+        Optional<Long> cached = personViewCache.findVersion(1L);
+        Optional<Long> uncached = personViewCache.findVersion(2L);
+
+        // validation
+        assertThat(cached).contains(3L);
+        assertThat(uncached).contains(7L);
+        verify(personRepository, never()).findVersionById(1L);
+        verify(personRepository, never()).findById(2L);
+    }
+
+    @Test
+    @DisplayName("Should serialize a view once per version when serialized views are enabled")
+    public void findJsonTest() throws Exception {
+        // scenery
+        PersonCacheProperties properties = new PersonCacheProperties();
+        properties.getJson().setEnabled(true);
+        personViewCache = createCache(properties);
+
+        Person person = createPerson();
+        when(personRepository.findById(1L)).thenReturn(Optional.of(person));
+
+        // execution
+        PersonViewCache.JsonView first = personViewCache.findJson(1L).orElseThrow();
+        PersonViewCache.JsonView second = personViewCache.findJson(1L).orElseThrow();
+
+        person.setName("Sicrano");
+        person.setVersion(4L);
+        personViewCache.invalidate(1L);
+        PersonViewCache.JsonView updated = personViewCache.findJson(1L).orElseThrow();
+
+        // validation
+        assertThat(second.bytes()).isSameAs(first.bytes());
+        assertThat(new ObjectMapper().readTree(first.bytes()).get("name").asText()).isEqualTo("Fulano");
+        assertThat(new ObjectMapper().readTree(first.bytes()).get("birthDay").asText()).isEqualTo("1998-11-25");
+        assertThat(updated.version()).isEqualTo(4L);
+        assertThat(new ObjectMapper().readTree(updated.bytes()).get("name").asText()).isEqualTo("Sicrano");
+        assertThat(meterRegistry.get("person.views.json.size").gauge().value()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should refuse serialized views unless they're enabled")
+    public void findJsonDisabledTest() {
+        assertThat(personViewCache.isJsonEnabled()).isFalse();
+        assertThat(catchThrowable(() -> personViewCache.findJson(1L))).isInstanceOf(IllegalStateException.class);
+    }
+
+    private PersonViewCache createCache(PersonCacheProperties properties) {
+        return new PersonViewCache(personRepository, new PersonMapper(new AddressMapper()),
+                new TransactionTemplate(transactionManager), new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS), properties,
+                new ReadYourWrites(new DataSourceRoutingProperties()), meterRegistry);
+    }
+
+    private static Person createPerson() {
+        return Person.builder()
+                .id(1L)
+                .name("Fulano")
+                .cpf("486.031.170-12")
+                .birthDay(LocalDate.of(1998, 11, 25))
+                .version(3L)
+                .addressSet(new HashSet<>())
+                .build();
+    }
+
+}
@@ -0,0 +1,353 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.client.ViaCepClient;
+import br.com.itstoony.attornatus.client.ZipcodeIndex;
+import br.com.itstoony.attornatus.config.ThreadsProperties;
+import br.com.itstoony.attornatus.config.ZipcodeProperties;
+import br.com.itstoony.attornatus.dto.ViaCepResponseDTO;
+import br.com.itstoony.attornatus.exception.ZipcodeLookupTimeoutException;
+import br.com.itstoony.attornatus.exception.ZipcodeUnavailableException;
+import feign.FeignException;
+import feign.Request;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ZipcodeServiceTest {
+
+    ZipcodeService zipcodeService;
+
+    SimpleMeterRegistry meterRegistry;
+
+    CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @MockBean
+    ViaCepClient viaCepClient;
+
+    @MockBean
+    ZipcodeIndex zipcodeIndex;
+
+    @BeforeEach
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        when(zipcodeIndex.isEmpty()).thenReturn(false);
+        this.zipcodeService = new ZipcodeService(viaCepClient, zipcodeIndex, new ZipcodeProperties(),
+                new ThreadsProperties(), meterRegistry, circuitBreakerRegistry);
+
+        when(zipcodeIndex.find(anyString())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("Should resolve zipcodes found in the local index without calling ViaCEP")
+    public void findIndexedZipcodeTest() {
+        // scenery
+        when(zipcodeIndex.find("69098384")).thenReturn(Optional.of(createViaCepResponse()));
+
+        // execution
+        Optional<ViaCepResponseDTO> result = zipcodeService.find("69098-384");
+
+        // validation
+        assertThat(result).isPresent();
+        assertThat(result.get().getLocalidade()).isEqualTo("Manaus");
+        assertThat(meterRegistry.get("zipcode.index.lookups").tag("result", "hit").counter().count()).isEqualTo(1);
+
+        verify(viaCepClient, never()).getZipcode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should neither search nor count index lookups when no index is configured")
+    public void findWithoutIndexTest() {
+        // scenery
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ZipcodeService service = new ZipcodeService(viaCepClient, ZipcodeIndex.empty(), new ZipcodeProperties(),
+                new ThreadsProperties(), registry, circuitBreakerRegistry);
+        when(viaCepClient.getZipcode("69098384")).thenReturn(createViaCepResponse());
+
+        // execution
+        Optional<ViaCepResponseDTO> result = service.find("69098-384");
+        service.shutdown();
+
+        // validation
+        assertThat(result).isPresent();
+        assertThat(registry.find("zipcode.index.lookups").counters()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should call ViaCEP only once for repeated lookups of the same zipcode")
+    public void findCachedZipcodeTest() {
+        // scenery
+        when(viaCepClient.getZipcode("69098384")).thenReturn(createViaCepResponse());
+
+        // execution
+        Optional<ViaCepResponseDTO> first = zipcodeService.find("69098384");
+        Optional<ViaCepResponseDTO> second = zipcodeService.find("69098-384");
+
+        // validation
+        assertThat(first).isPresent();
+        assertThat(second).containsSame(first.get());
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+
+        verify(viaCepClient, times(1)).getZipcode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should share a single ViaCEP call between concurrent lookups of the same zipcode")
+    public void findConcurrentZipcodeTest() throws Exception {
+        // scenery
+        int callers = 8;
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(viaCepClient.getZipcode("69098384")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return createViaCepResponse();
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        // execution
+        List<Future<Optional<ViaCepResponseDTO>>> results = IntStream.range(0, callers)
+                .mapToObj(i -> executor.submit(() -> zipcodeService.find("69098384")))
+                .toList();
+
+        while (meterRegistry.get("zipcode.lookups.coalesced").functionCounter().count() < callers - 1) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        // validation
+        for (Future<Optional<ViaCepResponseDTO>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isPresent();
+        }
+        executor.shutdown();
+
+        verify(viaCepClient, times(1)).getZipcode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should resolve zipcodes asynchronously, completing at once when the zipcode is cached")
+    public void findAsyncTest() {
+        // scenery
+        when(viaCepClient.getZipcode("69098384")).thenReturn(createViaCepResponse());
+
+        // execution
+        Optional<ViaCepResponseDTO> fetched = zipcodeService.findAsync("69098384").join();
+        CompletableFuture<Optional<ViaCepResponseDTO>> cached = zipcodeService.findAsync("69098-384");
+
+        // validation
+        assertThat(fetched).isPresent();
+        assertThat(cached).isCompleted();
+        assertThat(cached.join()).containsSame(fetched.get());
+
+        verify(viaCepClient, times(1)).getZipcode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should fail an asynchronous lookup that passes its deadline")
+    public void findAsyncTimeoutTest() {
+        // scenery
+        ZipcodeProperties properties = new ZipcodeProperties();
+        properties.getLookup().setTimeout(Duration.ofMillis(50));
+        ZipcodeService service = new ZipcodeService(viaCepClient, zipcodeIndex, properties, new ThreadsProperties(),
+                meterRegistry, circuitBreakerRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(viaCepClient.getZipcode("69098384")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return createViaCepResponse();
+        });
+
+        // execution
+        Throwable exception = catchThrowable(() -> service.findAsync("69098384").join());
+        release.countDown();
+        service.shutdown();
+
+        // validation
+        assertThat(exception).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(ZipcodeLookupTimeoutException.class);
+    }
+
+    @Test
+    @DisplayName("Should look up on virtual threads, no more calling ViaCEP at once than the limit")
+    public void findAsyncVirtualTest() {
+        // scenery
+        ZipcodeProperties properties = new ZipcodeProperties();
+        properties.getLookup().setVirtualConcurrency(1);
+        ThreadsProperties threads = new ThreadsProperties();
+        threads.setVirtual(true);
+        ZipcodeService service = new ZipcodeService(viaCepClient, zipcodeIndex, properties, threads,
+                meterRegistry, circuitBreakerRegistry);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        AtomicBoolean virtual = new AtomicBoolean(true);
+
+        when(viaCepClient.getZipcode(anyString())).thenAnswer(invocation -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            virtual.compareAndSet(true, Thread.currentThread().isVirtual());
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return createViaCepResponse();
+        });
+
+        // execution
+        List<CompletableFuture<Optional<ViaCepResponseDTO>>> lookups = List.of(
+                service.findAsync("69098384"), service.findAsync("01001000"), service.findAsync("20040002"));
+        List<Optional<ViaCepResponseDTO>> results = lookups.stream().map(CompletableFuture::join).toList();
+        service.shutdown();
+
+        // validation
+        assertThat(results).allMatch(Optional::isPresent);
+        assertThat(mostRunning).hasValue(1);
+        assertThat(virtual).isTrue();
+        verify(viaCepClient, times(3)).getZipcode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should serve the last known data of an expired zipcode when ViaCEP fails")
+    public void findStaleZipcodeTest() {
+        // scenery
+        ZipcodeProperties properties = new ZipcodeProperties();
+        properties.getCache().setTtl(Duration.ofNanos(1));
+        ZipcodeService service = new ZipcodeService(viaCepClient, zipcodeIndex, properties, new ThreadsProperties(),
+                meterRegistry, circuitBreakerRegistry);
+
+        when(viaCepClient.getZipcode("69098384"))
+                .thenReturn(createViaCepResponse())
+                .thenThrow(new IllegalStateException("ViaCEP is down"));
+
+        // execution
+        Optional<ViaCepResponseDTO> fresh = service.find("69098384");
+        Optional<ViaCepResponseDTO> stale = service.find("69098384");
+        service.shutdown();
+
+        // validation
+        assertThat(stale).containsSame(fresh.get());
+        assertThat(meterRegistry.get("zipcode.lookups.stale").counter().count()).isEqualTo(1);
+
+        verify(viaCepClient, times(2)).getZipcode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should refuse lookups without calling ViaCEP while the circuit breaker is open")
+    public void findWithOpenCircuitBreakerTest() {
+        // scenery
+        circuitBreakerRegistry.circuitBreaker(ZipcodeService.CIRCUIT_BREAKER).transitionToForcedOpenState();
+
+        // execution
+        Throwable exception = catchThrowable(() -> zipcodeService.find("69098384"));
+
+        // validation
+        assertThat(exception).isInstanceOf(ZipcodeUnavailableException.class);
+
+        verify(viaCepClient, never()).getZipcode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should probe ViaCEP only while the circuit breaker isn't closed")
+    public void probeTest() {
+        // scenery
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(ZipcodeService.CIRCUIT_BREAKER);
+        when(viaCepClient.getZipcode("01001000")).thenReturn(createViaCepResponse());
+
+        // execution
+        zipcodeService.probe();
+        circuitBreaker.transitionToOpenState();
+        circuitBreaker.transitionToHalfOpenState();
+        zipcodeService.probe();
+
+        // validation
+        verify(viaCepClient, times(1)).getZipcode("01001000");
+    }
+
+    @Test
+    @DisplayName("Should cache zipcodes unknown to ViaCEP")
+    public void findUnknownZipcodeTest() {
+        // scenery
+        when(viaCepClient.getZipcode("00000000")).thenReturn(ViaCepResponseDTO.builder().erro(true).build());
+
+        // execution
+        Optional<ViaCepResponseDTO> first = zipcodeService.find("00000000");
+        Optional<ViaCepResponseDTO> second = zipcodeService.find("00000000");
+
+        // validation
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+
+        verify(viaCepClient, times(1)).getZipcode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should time ViaCEP calls by outcome and count their errors by exception type")
+    public void viaCepMetricsTest() {
+        // scenery
+        Request request = Request.create(Request.HttpMethod.GET, "/ws/00000001/json", Map.of(), null,
+                StandardCharsets.UTF_8, null);
+        when(viaCepClient.getZipcode("69098384")).thenReturn(createViaCepResponse());
+        when(viaCepClient.getZipcode("00000000")).thenReturn(ViaCepResponseDTO.builder().erro(true).build());
+        when(viaCepClient.getZipcode("00000001"))
+                .thenThrow(new FeignException.BadGateway("Bad Gateway", request, null, Map.of()));
+
+        // execution
+        zipcodeService.find("69098384");
+        zipcodeService.find("00000000");
+        Throwable exception = catchThrowable(() -> zipcodeService.find("00000001"));
+
+        // validation
+        assertThat(exception).isNotNull();
+        assertThat(meterRegistry.get("viacep.requests").tag("outcome", "found").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("viacep.requests").tag("outcome", "not_found").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("viacep.requests").tag("outcome", "server_error").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("viacep.errors").tag("exception", "BadGateway").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not call ViaCEP for malformed zipcodes")
+    public void findMalformedZipcodeTest() {
+        // execution
+        Optional<ViaCepResponseDTO> result = zipcodeService.find("1234");
+
+        // validation
+        assertThat(result).isEmpty();
+
+        verify(viaCepClient, never()).getZipcode(anyString());
+    }
+
+    private static ViaCepResponseDTO createViaCepResponse() {
+        return ViaCepResponseDTO.builder()
+                .cep("69098-384")
+                .localidade("Manaus")
+                .logradouro("Rua Hortelã-do-Campo")
+                .build();
+    }
+
+}
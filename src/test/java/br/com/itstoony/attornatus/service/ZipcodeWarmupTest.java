@@ -0,0 +1,147 @@
+package br.com.itstoony.attornatus.service;
+
+import br.com.itstoony.attornatus.config.ZipcodeProperties;
+import br.com.itstoony.attornatus.exception.ZipcodeUnavailableException;
+import br.com.itstoony.attornatus.repository.AddressRepository;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ZipcodeWarmupTest {
+
+    ZipcodeWarmup zipcodeWarmup;
+
+    ZipcodeProperties properties;
+
+    @MockBean
+    AddressRepository addressRepository;
+
+    @MockBean
+    ZipcodeService zipcodeService;
+
+    @BeforeEach
+    public void setUp() {
+        this.properties = new ZipcodeProperties();
+        this.zipcodeWarmup = new ZipcodeWarmup(addressRepository, zipcodeService, properties,
+                RateLimiterRegistry.ofDefaults());
+
+        when(zipcodeService.find(anyString())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("Should look up the most used zipcodes that aren't resolved locally yet")
+    public void runTest() {
+        // scenery
+        properties.getWarmup().setMaximumZipcodes(3);
+        when(addressRepository.findMostUsedZipcodes(any(Pageable.class)))
+                .thenReturn(List.of("69098-384", "01001-000", "20040-002"));
+        when(zipcodeService.isResolvedLocally("01001-000")).thenReturn(true);
+        when(zipcodeService.find("20040-002")).thenThrow(new IllegalStateException("ViaCEP is down"));
+
+        // execution
+        ZipcodeWarmup.Result result = zipcodeWarmup.run();
+
+        // validation
+        assertThat(result.zipcodes()).isEqualTo(3);
+        assertThat(result.known()).isEqualTo(1);
+        assertThat(result.fetched()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(result.interrupted()).isFalse();
+        assertThat(zipcodeWarmup.lastResult()).isSameAs(result);
+        assertThat(zipcodeWarmup.isRunning()).isFalse();
+
+        verify(addressRepository).findMostUsedZipcodes(argThat(pageable -> pageable.getPageSize() == 3));
+        verify(zipcodeService, never()).find("01001-000");
+    }
+
+    @Test
+    @DisplayName("Should stop warming up while ViaCEP is unavailable")
+    public void runUnavailableTest() {
+        // scenery
+        when(addressRepository.findMostUsedZipcodes(any(Pageable.class)))
+                .thenReturn(List.of("69098-384", "01001-000"));
+        when(zipcodeService.find("69098-384"))
+                .thenThrow(new ZipcodeUnavailableException("Zipcode lookup is unavailable, try again later"));
+
+        // execution
+        ZipcodeWarmup.Result result = zipcodeWarmup.run();
+
+        // validation
+        assertThat(result.interrupted()).isTrue();
+        assertThat(result.fetched()).isZero();
+
+        verify(zipcodeService, never()).find("01001-000");
+    }
+
+    @Test
+    @DisplayName("Should not call ViaCEP faster than the rate limiter allows")
+    public void runRateLimitedTest() {
+        // scenery
+        RateLimiterRegistry rateLimiterRegistry = RateLimiterRegistry.of(RateLimiterConfig.custom()
+                .limitForPeriod(2)
+                .limitRefreshPeriod(Duration.ofMillis(200))
+                .timeoutDuration(Duration.ofSeconds(1))
+                .build());
+        ZipcodeWarmup limited = new ZipcodeWarmup(addressRepository, zipcodeService, properties, rateLimiterRegistry);
+        when(addressRepository.findMostUsedZipcodes(any(Pageable.class)))
+                .thenReturn(List.of("10000001", "10000002", "10000003", "10000004", "10000005"));
+
+        // execution
+        ZipcodeWarmup.Result result = limited.run();
+
+        // validation: two calls per 200ms, the fifth one waits for the third period
+        assertThat(result.fetched()).isEqualTo(5);
+        assertThat(result.millis()).isGreaterThanOrEqualTo(350);
+    }
+
+    @Test
+    @DisplayName("Should stop waiting for the rate limiter once the thread is interrupted")
+    public void runInterruptedTest() {
+        // scenery
+        RateLimiterRegistry rateLimiterRegistry = RateLimiterRegistry.of(RateLimiterConfig.custom()
+                .limitForPeriod(1)
+                .limitRefreshPeriod(Duration.ofMinutes(1))
+                .timeoutDuration(Duration.ofMillis(10))
+                .build());
+        ZipcodeWarmup limited = new ZipcodeWarmup(addressRepository, zipcodeService, properties, rateLimiterRegistry);
+        when(addressRepository.findMostUsedZipcodes(any(Pageable.class)))
+                .thenReturn(List.of("10000001", "10000002"));
+        when(zipcodeService.find("10000001")).thenAnswer(invocation -> {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        });
+
+        // execution
+        ZipcodeWarmup.Result result;
+        try {
+            result = limited.run();
+        } finally {
+            Thread.interrupted();
+        }
+
+        // validation
+        assertThat(result.interrupted()).isTrue();
+        assertThat(result.fetched()).isEqualTo(1);
+
+        verify(zipcodeService, never()).find("10000002");
+    }
+
+}
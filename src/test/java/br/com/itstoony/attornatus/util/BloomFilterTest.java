@@ -0,0 +1,37 @@
+package br.com.itstoony.attornatus.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class BloomFilterTest {
+
+    @Test
+    @DisplayName("Should contain every value put, with false positives near the configured rate")
+    public void mightContainTest() {
+        // scenery
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("%011d".formatted(i)));
+
+        // execution
+        long missed = IntStream.range(0, 10_000).filter(i -> !filter.mightContain("%011d".formatted(i))).count();
+        long falsePositives = IntStream.range(10_000, 110_000).filter(i -> filter.mightContain("%011d".formatted(i))).count();
+
+        // validation
+        assertThat(missed).isZero();
+        assertThat(falsePositives).isLessThan(2_000);
+        assertThat(filter.insertions()).isEqualTo(10_000);
+    }
+
+    @Test
+    @DisplayName("Should refuse sizes it can't build")
+    public void invalidSizeTest() {
+        assertThat(catchThrowable(() -> new BloomFilter(0, 0.01))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new BloomFilter(100, 1))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,154 @@
+package br.com.itstoony.attornatus.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ReplicaRoutingDataSourceTest {
+
+    DataSource primary;
+
+    DataSource replica1;
+
+    DataSource replica2;
+
+    ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    public void setUp() {
+        this.primary = createDatabase("primary");
+        this.replica1 = createDatabase("replica1");
+        this.replica2 = createDatabase("replica2");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        List.of(primary, replica1, replica2).forEach(database -> new JdbcTemplate(database).execute("DROP ALL OBJECTS"));
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to the replicas in turn")
+    public void readOnlyTest() {
+        // scenery
+        routing = createRouting(List.of(replica1, replica2), Duration.ZERO);
+
+        // execution
+        List<String> reads = List.of(read(true), read(true), read(true));
+
+        // validation
+        assertThat(reads).containsExactly("replica1", "replica2", "replica1");
+    }
+
+    @Test
+    @DisplayName("Should keep read-write transactions and statements outside transactions on the primary")
+    public void primaryTest() {
+        // scenery
+        routing = createRouting(List.of(replica1), Duration.ZERO);
+
+        // execution
+        String readWrite = read(false);
+        String outside = new JdbcTemplate(routing).queryForObject("SELECT name FROM marker", String.class);
+
+        // validation
+        assertThat(readWrite).isEqualTo("primary");
+        assertThat(outside).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should read from the primary right after the same thread wrote")
+    public void readYourWritesTest() {
+        // scenery
+        routing = createRouting(List.of(replica1), Duration.ofMinutes(1));
+
+        // execution
+        String before = read(true);
+        read(false);
+        String after = read(true);
+
+        // validation
+        assertThat(before).isEqualTo("replica1");
+        assertThat(after).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should read from the primary while the thread is pinned to it")
+    public void pinTest() {
+        // scenery
+        routing = createRouting(List.of(replica1), Duration.ZERO);
+
+        // execution
+        String pinned;
+        try (ReplicaRoutingDataSource.Pin pin = ReplicaRoutingDataSource.pinToPrimary()) {
+            pinned = read(true);
+        }
+        String unpinned = read(true);
+
+        // validation
+        assertThat(pinned).isEqualTo("primary");
+        assertThat(unpinned).isEqualTo("replica1");
+    }
+
+    @Test
+    @DisplayName("Should skip a replica refusing connections until it's time to retry it")
+    public void replicaDownTest() throws SQLException {
+        // scenery
+        DataSource down = mock(DataSource.class);
+        when(down.getConnection()).thenThrow(new SQLException("Connection refused"));
+        routing = createRouting(List.of(down, replica1), Duration.ZERO);
+
+        // execution
+        List<String> reads = List.of(read(true), read(true), read(true));
+
+        // validation
+        assertThat(reads).containsOnly("replica1");
+        verify(down, times(1)).getConnection();
+    }
+
+    @Test
+    @DisplayName("Should read from the primary when every replica refuses connections")
+    public void allReplicasDownTest() throws SQLException {
+        // scenery
+        DataSource down = mock(DataSource.class);
+        when(down.getConnection()).thenThrow(new SQLException("Connection refused"));
+        routing = createRouting(List.of(down), Duration.ZERO);
+
+        // execution
+        String read = read(true);
+
+        // validation
+        assertThat(read).isEqualTo("primary");
+    }
+
+    private String read(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(routing).queryForObject("SELECT name FROM marker", String.class));
+    }
+
+    private ReplicaRoutingDataSource createRouting(List<DataSource> replicas, Duration readYourWrites) {
+        return new ReplicaRoutingDataSource(primary, replicas, readYourWrites, Duration.ofMinutes(1));
+    }
+
+    private static DataSource createDatabase(String name) {
+        DataSource database = new DriverManagerDataSource("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO marker VALUES (?)", name);
+        return database;
+    }
+
+}
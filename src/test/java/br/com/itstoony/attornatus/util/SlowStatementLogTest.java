@@ -0,0 +1,65 @@
+package br.com.itstoony.attornatus.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SlowStatementLogTest {
+
+    @Test
+    @DisplayName("Should keep only statements taking at least the threshold")
+    public void recordTest() {
+        // scenery
+        SlowStatementLog log = new SlowStatementLog(Duration.ofMillis(10), 10);
+
+        // execution
+        boolean fast = log.record("select 1", List.of(), 0, Duration.ofMillis(9).toNanos());
+        boolean slow = log.record("select * from person where id=?", List.of("Long"), 0, Duration.ofMillis(10).toNanos());
+
+        // validation
+        assertThat(fast).isFalse();
+        assertThat(slow).isTrue();
+        assertThat(log.recorded()).isEqualTo(1);
+        assertThat(log.slowest()).singleElement().satisfies(entry -> {
+            assertThat(entry.sql()).isEqualTo("select * from person where id=?");
+            assertThat(entry.parameters()).containsExactly("Long");
+            assertThat(entry.millis()).isEqualTo(10.0);
+        });
+    }
+
+    @Test
+    @DisplayName("Should overwrite the oldest statements once full, listing the slowest first")
+    public void overwriteTest() {
+        // scenery
+        SlowStatementLog log = new SlowStatementLog(Duration.ZERO, 2);
+
+        // execution
+        log.record("first", List.of(), 0, Duration.ofMillis(30).toNanos());
+        log.record("second", List.of(), 0, Duration.ofMillis(10).toNanos());
+        log.record("third", List.of(), 0, Duration.ofMillis(20).toNanos());
+
+        // validation
+        assertThat(log.recorded()).isEqualTo(3);
+        assertThat(log.slowest()).extracting(SlowStatementLog.Entry::sql).containsExactly("third", "second");
+
+        log.clear();
+        assertThat(log.slowest()).isEmpty();
+        assertThat(log.recorded()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should refuse a capacity that isn't positive")
+    public void invalidCapacityTest() {
+        // execution
+        Throwable exception = catchThrowable(() -> new SlowStatementLog(Duration.ZERO, 0));
+
+        // validation
+        assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,30 @@
+package br.com.itstoony.attornatus.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VirtualThreadsTest {
+
+    @Test
+    @DisplayName("Should run tasks on named virtual threads")
+    public void newExecutorTest() throws Exception {
+        // scenery
+        ExecutorService executor = VirtualThreads.newExecutor("test-");
+
+        try {
+            // execution
+            Thread thread = executor.submit(Thread::currentThread).get();
+
+            // validation
+            assertThat(thread.getName()).isEqualTo("test-0");
+            assertThat(thread.isVirtual()).isTrue();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}